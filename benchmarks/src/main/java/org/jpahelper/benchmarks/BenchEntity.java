@@ -0,0 +1,52 @@
+package org.jpahelper.benchmarks;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Entity
+@Table(indexes = { @Index(columnList = "name"), @Index(columnList = "age") })
+public class BenchEntity {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private Integer age;
+
+    public BenchEntity() {
+    }
+
+    public BenchEntity(Long id, String name, Integer age) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+}
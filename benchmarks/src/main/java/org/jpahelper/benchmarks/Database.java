@@ -0,0 +1,46 @@
+package org.jpahelper.benchmarks;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Banco H2 em memória, populado uma vez por execução, compartilhado por todos os benchmarks
+ */
+@State(Scope.Benchmark)
+public class Database {
+
+    public static final int ROWS = 100_000;
+
+    public static final int DISTINCT_NAMES = 1_000;
+
+    EntityManagerFactory emf;
+
+    @Setup
+    public void setup() {
+        emf = Persistence.createEntityManagerFactory("benchmarks");
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (long id = 1; id <= ROWS; id++) {
+            em.persist(new BenchEntity(id, "name" + (id % DISTINCT_NAMES), (int) (id % 100)));
+            if ( id % 500 == 0 ) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+}
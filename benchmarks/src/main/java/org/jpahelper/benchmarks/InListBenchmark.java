@@ -0,0 +1,61 @@
+package org.jpahelper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jpahelper.JpaCriteriaHelper;
+import org.jpahelper.JpaCriteriaHelper.ComparatorOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consultas com o operador IN conforme o tamanho da lista
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InListBenchmark {
+
+    @Param({ "10", "100", "1000", "5000" })
+    public int inSize;
+
+    private List<Long> ids;
+
+    @Setup
+    public void setup() {
+        ids = new ArrayList<>();
+        for (long id = 1; id <= inSize; id++) {
+            ids.add(id * 7 % Database.ROWS + 1);
+        }
+    }
+
+    @Benchmark
+    public List<BenchEntity> resultsIn(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("id", ComparatorOperator.IN, ids)
+                .getResults();
+    }
+
+    @Benchmark
+    public long countIn(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("id", ComparatorOperator.IN, ids)
+                .count();
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.jpahelper.benchmarks;
+
+/**
+ * DTO das projeções usadas em getTupleResults
+ */
+public class NameAge {
+
+    private final String name;
+
+    private final Integer age;
+
+    public NameAge(String name, Integer age) {
+        this.name = name;
+        this.age = age;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.jpahelper.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jpahelper.JpaCriteriaHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Paginação por número (offset) versus paginação por chave (seek) conforme a profundidade da página
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageDepthBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({ "1", "100", "1000" })
+    public int pageNumber;
+
+    @Benchmark
+    public List<BenchEntity> offsetPage(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .orderBy("id")
+                .setPageSize(PAGE_SIZE)
+                .page(pageNumber)
+                .getResults();
+    }
+
+    @Benchmark
+    public List<BenchEntity> seekPage(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .orderBy("id")
+                .setPageSize(PAGE_SIZE)
+                .seek((long) (pageNumber - 1) * PAGE_SIZE)
+                .getResults();
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.jpahelper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jpahelper.JpaCriteriaHelper;
+import org.jpahelper.JpaCriteriaHelper.ComparatorOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da montagem da árvore de predicados (getPredicates / getPath) conforme o número de clausulas WHERE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredicateCountBenchmark {
+
+    @Param({ "1", "5", "20" })
+    public int predicates;
+
+    @Benchmark
+    public long countWithPredicates(Session session) {
+        JpaCriteriaHelper<BenchEntity> query = JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("age", ComparatorOperator.LESS_THAN, 50);
+        for (int i = 1; i < predicates; i++) {
+            if ( i % 2 == 0 ) {
+                query.and("name", ComparatorOperator.NOT_EQUAL, "name" + i);
+            } else {
+                query.and("id", ComparatorOperator.GREATER_THAN, (long) i);
+            }
+        }
+        return query.count();
+    }
+
+}
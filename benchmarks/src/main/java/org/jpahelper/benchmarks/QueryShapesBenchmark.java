@@ -0,0 +1,110 @@
+package org.jpahelper.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jpahelper.CompiledQuery;
+import org.jpahelper.JpaCriteriaHelper;
+import org.jpahelper.JpaCriteriaHelper.ComparatorOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formatos de consulta de {@link org.jpahelper.examples.JpaCriteriaHelperExamples}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryShapesBenchmark {
+
+    @Benchmark
+    public List<BenchEntity> top10Ids(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("id", ComparatorOperator.LESS_THAN, 11L)
+                .orderBy("id")
+                .getResults();
+    }
+
+    @Benchmark
+    public List<BenchEntity> paginatedNameLike(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("name", ComparatorOperator.LIKE_IGNORE_CASE, "NAME1%")
+                .orderBy("name").desc()
+                .setPageSize(20)
+                .page(3)
+                .getResults();
+    }
+
+    @Benchmark
+    public boolean exists(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("id", 500L)
+                .and("name", "name500")
+                .and("age", 0)
+                .exists();
+    }
+
+    @Benchmark
+    public long countOrChain(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("name", "name1")
+                .or("name", "name2")
+                .or("name", "name3")
+                .count();
+    }
+
+    @Benchmark
+    public BenchEntity firstOfIds(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("id", ComparatorOperator.IN, Arrays.asList(10L, 20L, 30L, 40L))
+                .getFirstResult();
+    }
+
+    @Benchmark
+    public List<NameAge> tupleProjection(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("age", 42)
+                .orderBy("id")
+                .setPageSize(100)
+                .page(1)
+                .getTupleResults(NameAge.class, Arrays.asList("name", "age"));
+    }
+
+    @Benchmark
+    public List<BenchEntity> dynamicByName(Session session) {
+        return JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("name", "name7")
+                .orderBy("id")
+                .setPageSize(20)
+                .page(1)
+                .getResults();
+    }
+
+    @Benchmark
+    public List<BenchEntity> compiledByName(Session session) {
+        CompiledQuery<BenchEntity> query = JpaCriteriaHelper
+                .select(session.em, BenchEntity.class)
+                .where("name", JpaCriteriaHelper.param("name"))
+                .orderBy("id")
+                .setPageSize(20)
+                .page(1)
+                .compile();
+        return query.with(session.em).bind("name", "name7").getResults();
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.jpahelper.benchmarks;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * EntityManager de cada thread de benchmark. O contexto de persistência é limpo a cada iteração.
+ */
+@State(Scope.Thread)
+public class Session {
+
+    EntityManager em;
+
+    @Setup
+    public void setup(Database database) {
+        em = database.emf.createEntityManager();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        em.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+    }
+
+}
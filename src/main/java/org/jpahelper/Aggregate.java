@@ -0,0 +1,140 @@
+package org.jpahelper;
+
+import java.util.Objects;
+
+/**
+ * Função de agregação calculada no banco (ver {@link JpaCriteriaHelper#getGroupResults(Aggregate...)} e
+ * {@link JpaCriteriaHelper#summarize(Aggregate...)}).
+ * <p>
+ * Cada agregação é identificada por um apelido, usado como chave nos resultados (padrão: <code>"sum(valor)"</code>,
+ * <code>"count"</code>, ...), que pode ser alterado com {@link #as(String)}.
+ * Objetos desta classe são imutáveis.
+ */
+public final class Aggregate {
+
+    enum Type { COUNT, COUNT_DISTINCT, SUM, MIN, MAX, AVG };
+
+    private final Type type;
+
+    private final String fieldName;
+
+    private final String alias;
+
+    private Aggregate(Type type, String fieldName, String alias) {
+        this.type      = type;
+        this.fieldName = fieldName;
+        this.alias     = alias;
+    }
+
+    private static Aggregate of( Type type, String fieldName ) {
+        Objects.requireNonNull(fieldName);
+        String name = type == Type.COUNT_DISTINCT ? "countDistinct" : type.name().toLowerCase();
+        return new Aggregate(type, fieldName, name + "(" + fieldName + ")");
+    }
+
+    /**
+     * Número de registros
+     * @return agregação
+     */
+    public static Aggregate count() {
+        return new Aggregate(Type.COUNT, null, "count");
+    }
+
+    /**
+     * Número de valores não nulos da propriedade
+     * @param fieldName Propriedade (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate count( String fieldName ) {
+        return of(Type.COUNT, fieldName);
+    }
+
+    /**
+     * Número de valores distintos da propriedade
+     * @param fieldName Propriedade (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate countDistinct( String fieldName ) {
+        return of(Type.COUNT_DISTINCT, fieldName);
+    }
+
+    /**
+     * Soma da propriedade (Long para tipos inteiros, Double para ponto flutuante, BigDecimal/BigInteger para estes)
+     * @param fieldName Propriedade numérica (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate sum( String fieldName ) {
+        return of(Type.SUM, fieldName);
+    }
+
+    /**
+     * Menor valor da propriedade
+     * @param fieldName Propriedade (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate min( String fieldName ) {
+        return of(Type.MIN, fieldName);
+    }
+
+    /**
+     * Maior valor da propriedade
+     * @param fieldName Propriedade (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate max( String fieldName ) {
+        return of(Type.MAX, fieldName);
+    }
+
+    /**
+     * Média da propriedade (Double)
+     * @param fieldName Propriedade numérica (pode ser caminho com pontos)
+     * @return agregação
+     */
+    public static Aggregate avg( String fieldName ) {
+        return of(Type.AVG, fieldName);
+    }
+
+    /**
+     * Cria uma cópia da agregação com outro apelido
+     * @param alias Apelido, usado como chave nos resultados
+     * @return agregação
+     */
+    public Aggregate as( String alias ) {
+        return new Aggregate(type, fieldName, Objects.requireNonNull(alias));
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * @return propriedade agregada, ou <b>null</b> em {@link #count()}
+     */
+    String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if ( ! (obj instanceof Aggregate) ) {
+            return false;
+        }
+        Aggregate other = (Aggregate) obj;
+        return type == other.type && Objects.equals(fieldName, other.fieldName) && alias.equals(other.alias);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, fieldName, alias);
+    }
+
+    @Override
+    public String toString() {
+        return alias;
+    }
+
+}
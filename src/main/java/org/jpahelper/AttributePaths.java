@@ -0,0 +1,176 @@
+package org.jpahelper;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+
+/**
+ * Cache, compartilhado entre threads, da resolução dos caminhos de propriedades (ex.: <code>["endereco", "cidade"]</code>)
+ * de cada entidade a partir do {@link Metamodel} da JPA.
+ */
+final class AttributePaths {
+
+    private static final ConcurrentMap<Metamodel, ConcurrentMap<Class<?>, ConcurrentMap<List<String>, ResolvedPath>>> cache
+            = new ConcurrentHashMap<>();
+
+    private AttributePaths() {
+    }
+
+    /**
+     * Caminho de propriedades já resolvido no Metamodel
+     */
+    static final class ResolvedPath {
+
+        private final List<Step> steps;
+
+        private final boolean singleValued;
+
+        private ResolvedPath(List<Step> steps) {
+            this.steps        = Collections.unmodifiableList(steps);
+            this.singleValued = steps.stream().noneMatch(step -> step.join);
+        }
+
+        List<Step> getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return tipo Java da última propriedade (tipo do elemento, no caso de coleções)
+         */
+        Class<?> getJavaType() {
+            return steps.get(steps.size() - 1).javaType;
+        }
+
+        /**
+         * @return <b>true</b> se o caminho não atravessa coleções (cada registro da entidade possui um único valor)
+         */
+        boolean isSingleValued() {
+            return singleValued;
+        }
+
+        /**
+         * @return <b>true</b> se alguma propriedade do caminho pode ser nula
+         */
+        boolean isOptional() {
+            return steps.stream().anyMatch(step -> step.optional);
+        }
+
+        /**
+         * @return <b>true</b> se o caminho atravessa ou termina em um relacionamento
+         */
+        boolean hasAssociation() {
+            return steps.stream().anyMatch(step -> step.association);
+        }
+    }
+
+    /**
+     * Uma propriedade do caminho
+     */
+    static final class Step {
+
+        private final String name;
+
+        private final boolean join;
+
+        private final Class<?> javaType;
+
+        private final Member javaMember;
+
+        private final boolean optional;
+
+        private final boolean association;
+
+        private Step(String name, boolean join, Class<?> javaType, Member javaMember, boolean optional, boolean association) {
+            this.name        = name;
+            this.join        = join;
+            this.javaType    = javaType;
+            this.javaMember  = javaMember;
+            this.optional    = optional;
+            this.association = association;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return <b>true</b> se a propriedade é uma coleção, e portanto exige JOIN
+         */
+        boolean isJoin() {
+            return join;
+        }
+
+        Class<?> getJavaType() {
+            return javaType;
+        }
+
+        Member getJavaMember() {
+            return javaMember;
+        }
+    }
+
+    /**
+     * Resolve o caminho de propriedades, usando o cache
+     * @throws RuntimeException se alguma propriedade não existir na entidade
+     */
+    static ResolvedPath resolve( Metamodel metamodel, Class<?> entityClass, List<String> fieldNames ) {
+        ConcurrentMap<List<String>, ResolvedPath> entityPaths = cache
+                .computeIfAbsent(metamodel, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(entityClass, c -> new ConcurrentHashMap<>());
+
+        ResolvedPath resolved = entityPaths.get(fieldNames);
+        if ( resolved == null ) {
+            resolved = resolve(metamodel.managedType(entityClass), fieldNames);
+            entityPaths.putIfAbsent(Collections.unmodifiableList(new ArrayList<>(fieldNames)), resolved);
+        }
+        return resolved;
+    }
+
+    private static ResolvedPath resolve( ManagedType<?> entityType, List<String> fieldNames ) {
+        if ( fieldNames.isEmpty() ) {
+            throw new RuntimeException("Nenhuma propriedade informada.");
+        }
+
+        List<Step> steps = new ArrayList<>();
+        ManagedType<?> managedType = entityType;
+        for (String fieldName : fieldNames) {
+            if ( managedType == null ) {
+                throw new RuntimeException("Caminho inválido " + fieldNames + " em " + entityType.getJavaType().getName()
+                        + ": a propriedade anterior a " + fieldName + " não é navegável.");
+            }
+
+            Attribute<?, ?> attribute;
+            try {
+                attribute = managedType.getAttribute(fieldName);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Propriedade " + fieldName + " inexistente em " + managedType.getJavaType().getName()
+                        + " (caminho " + fieldNames + ").", e);
+            }
+
+            Type<?> type;
+            boolean optional;
+            if ( attribute.isCollection() ) {
+                type = ((PluralAttribute<?, ?, ?>) attribute).getElementType();
+                optional = false;
+            } else {
+                type = ((SingularAttribute<?, ?>) attribute).getType();
+                optional = ((SingularAttribute<?, ?>) attribute).isOptional() && ! attribute.getJavaType().isPrimitive();
+            }
+            steps.add( new Step(fieldName, attribute.isCollection(), type.getJavaType(), attribute.getJavaMember()
+                    , optional, attribute.isAssociation()) );
+            managedType = type instanceof ManagedType ? (ManagedType<?>) type : null;
+        }
+        return new ResolvedPath(steps);
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.jpahelper;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Conjunto de updates heterogêneos (pares <code>set</code>/<code>where</code>) sobre uma mesma entidade,
+ * criado com {@link JpaCriteriaHelper#batchUpdate(EntityManager, Class)}.
+ * <p>
+ * Updates consecutivos cujo WHERE é uma única igualdade sobre o mesmo campo (ex.: o id) e que alteram os mesmos campos
+ * são agrupados em um único UPDATE, de até {@link #setBatchSize(int)} registros:
+ * <pre>
+ * UPDATE Entidade SET nome = CASE id WHEN 1 THEN 'a' WHEN 2 THEN 'b' ELSE nome END WHERE id IN (1, 2)
+ * </pre>
+ * Os demais são executados individualmente. A ordem de aplicação dos updates é preservada, e cada comando executado
+ * (grupo) tem seu número de registros afetados informado em {@link Result}.
+ *
+ * @param <T> Entidade alterada
+ */
+public class BatchUpdate<T> {
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final EntityManager em;
+
+    private final Class<T> entityClass;
+
+    private final List<JpaCriteriaHelper<T>> updates = new ArrayList<>();
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    BatchUpdate(EntityManager em, Class<T> entityClass) {
+        this.em          = em;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Define o número máximo de updates agrupados em um único comando (padrão: 500)
+     * @param batchSize Número de updates
+     * @return objeto de update em lote
+     */
+    public BatchUpdate<T> setBatchSize( int batchSize ) {
+        if ( batchSize < 1 ) {
+            throw new RuntimeException("O tamanho do lote deve ser maior que zero.");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Inclui um update no lote
+     * @return objeto de update, onde são informados os <code>set</code> e <code>where</code>
+     * (<b>não</b> chame {@link JpaCriteriaHelper#execute()} nele)
+     */
+    public JpaCriteriaHelper<T> add() {
+        JpaCriteriaHelper<T> update = JpaCriteriaHelper.update(em, entityClass);
+        updates.add(update);
+        return update;
+    }
+
+    /**
+     * @return número de updates no lote
+     */
+    public int size() {
+        return updates.size();
+    }
+
+    /**
+     * Resultado de {@link BatchUpdate#execute()}: registros afetados por grupo (cada comando UPDATE executado) e por
+     * update incluído no lote
+     */
+    public static final class Result {
+
+        private final int[] updateCounts;
+
+        private final List<int[]> groups = new ArrayList<>();
+
+        private Result(int size) {
+            this.updateCounts = new int[size];
+        }
+
+        private void add( int start, int size, int affected ) {
+            groups.add( new int[] { start, size, affected } );
+            for (int i = start; i < start + size; i++) {
+                updateCounts[i] = size == 1 ? affected : Statement.SUCCESS_NO_INFO;
+            }
+        }
+
+        /**
+         * @return número de comandos UPDATE executados
+         */
+        public int getGroupCount() {
+            return groups.size();
+        }
+
+        /**
+         * @return número de registros afetados por cada grupo, na ordem de execução
+         */
+        public int[] getGroupCounts() {
+            return groups.stream().mapToInt(group -> group[2]).toArray();
+        }
+
+        /**
+         * @param group Índice do grupo (na ordem de execução)
+         * @return índice, na ordem de inclusão, do primeiro update do grupo
+         */
+        public int getGroupStart( int group ) {
+            return groups.get(group)[0];
+        }
+
+        /**
+         * @param group Índice do grupo (na ordem de execução)
+         * @return número de updates do grupo
+         */
+        public int getGroupSize( int group ) {
+            return groups.get(group)[1];
+        }
+
+        /**
+         * @return número de registros afetados por cada update, na ordem de inclusão. Updates agrupados recebem
+         * {@link Statement#SUCCESS_NO_INFO}, como em um batch JDBC (o total do grupo está em {@link #getGroupCounts()}).
+         */
+        public int[] getUpdateCounts() {
+            return updateCounts.clone();
+        }
+
+        /**
+         * @return total de registros afetados pelo lote
+         */
+        public long getTotal() {
+            return groups.stream().mapToLong(group -> group[2]).sum();
+        }
+    }
+
+    /**
+     * Executa os updates do lote, na ordem em que foram incluídos
+     * @return registros afetados por grupo e por update
+     */
+    public Result execute() {
+        Result result = new Result(updates.size());
+
+        List<JpaCriteriaHelper<T>> group = new ArrayList<>();
+        Set<Object> groupKeys = new HashSet<>();
+        List<Object> groupShape = null;
+        int groupStart = 0;
+
+        for (int i = 0; i < updates.size(); i++) {
+            JpaCriteriaHelper<T> update = updates.get(i);
+            List<Object> shape = update.getBatchShape();
+
+            boolean fits = shape != null && shape.equals(groupShape) && group.size() < batchSize
+                    && ! groupKeys.contains(update.getBatchKeyValue());
+            if ( ! fits ) {
+                flush(group, groupStart, result);
+                group.clear();
+                groupKeys.clear();
+                groupStart = i;
+                groupShape = shape;
+            }
+
+            if ( shape == null ) {
+                result.add(i, 1, update.execute());
+                groupStart = i + 1;
+            } else {
+                group.add(update);
+                groupKeys.add(update.getBatchKeyValue());
+            }
+        }
+        flush(group, groupStart, result);
+
+        return result;
+    }
+
+    private void flush( List<JpaCriteriaHelper<T>> group, int groupStart, Result result ) {
+        if ( group.isEmpty() ) {
+            return;
+        }
+        if ( group.size() == 1 ) {
+            result.add(groupStart, 1, group.get(0).execute());
+            return;
+        }
+        result.add(groupStart, group.size(), JpaCriteriaHelper.executeBatch(group));
+    }
+
+}
@@ -0,0 +1,296 @@
+package org.jpahelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.NoResultException;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+
+import org.jpahelper.JpaCriteriaHelper.QueryOperation;
+
+/**
+ * Consulta pré-montada a partir de um {@link JpaCriteriaHelper}, reutilizável entre chamadas.
+ * <p>
+ * A árvore de predicados é montada uma única vez, com os valores declarados via {@link JpaCriteriaHelper#param(String)}
+ * representados como parâmetros. A cada execução apenas os valores são associados, o que permite que o provedor JPA
+ * reaproveite o plano da consulta. Os hints (fetch size, somente leitura, cache, ...), o modo de flush e o entity graph
+ * vigentes na compilação são aplicados a todas as execuções; o entity graph é montado no EntityManager de cada execução.
+ * Execuções paginadas de consultas com fetch de coleções buscam primeiro a página de ids e depois as entidades desses ids.
+ * <p>
+ * Deve ser executada apenas com EntityManagers da mesma EntityManagerFactory usada para compilá-la.
+ *
+ * @param <T> Entidade consultada
+ */
+public final class CompiledQuery<T> {
+
+    /** Parâmetro com os ids da página na segunda etapa da paginação com fetch de coleções */
+    static final String IDS_PARAM = "jpahelperPageIds";
+
+    private final Class<T> entityClass;
+
+    private final String fingerprint;
+
+    private final CriteriaQuery<T> selectQuery;
+
+    private final CriteriaQuery<Long> countQuery;
+
+    private final CriteriaQuery<Tuple> idPageQuery;
+
+    private final CriteriaQuery<T> fetchByIdsQuery;
+
+    private final boolean contradiction;
+
+    private final List<String> paramNames;
+
+    private final Integer pageSize;
+
+    private final Integer pageNumber;
+
+    private final Map<String, Object> hints;
+
+    private final FlushModeType flushMode;
+
+    private final String graphHint;
+
+    private final List<List<String>> graphPaths;
+
+    private final Map<String, Function<String, String>> paramNormalizers;
+
+    CompiledQuery(Class<T> entityClass, String fingerprint, CriteriaQuery<T> selectQuery, CriteriaQuery<Long> countQuery
+            , CriteriaQuery<Tuple> idPageQuery, CriteriaQuery<T> fetchByIdsQuery, boolean contradiction, List<String> paramNames
+            , Integer pageSize, Integer pageNumber, Map<String, Object> hints, FlushModeType flushMode
+            , String graphHint, List<List<String>> graphPaths, Map<String, Function<String, String>> paramNormalizers) {
+        this.entityClass = entityClass;
+        this.fingerprint = fingerprint;
+        this.selectQuery = selectQuery;
+        this.countQuery  = countQuery;
+        this.idPageQuery = idPageQuery;
+        this.fetchByIdsQuery = fetchByIdsQuery;
+        this.contradiction = contradiction;
+        this.paramNames  = Collections.unmodifiableList(paramNames);
+        this.pageSize    = pageSize;
+        this.pageNumber  = pageNumber;
+        this.hints       = Collections.unmodifiableMap(hints);
+        this.flushMode   = flushMode;
+        this.graphHint   = graphHint;
+        this.graphPaths  = Collections.unmodifiableList(new ArrayList<>(graphPaths));
+        this.paramNormalizers = Collections.unmodifiableMap(paramNormalizers);
+    }
+
+    /**
+     * Nomes dos parâmetros que devem ser informados a cada execução
+     * @return lista de nomes
+     */
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+
+    /**
+     * Inicia uma execução da consulta no EntityManager informado
+     * @param em EntityManager
+     * @return objeto de execução, onde os parâmetros são informados
+     */
+    public Execution with( EntityManager em ) {
+        return new Execution(em);
+    }
+
+    /**
+     * Execução de uma {@link CompiledQuery}: guarda os valores dos parâmetros e a paginação de uma única chamada
+     */
+    public final class Execution {
+
+        private final EntityManager em;
+
+        private final Map<String, Object> values = new HashMap<>();
+
+        private Integer executionPageSize = pageSize;
+
+        private Integer executionPageNumber = pageNumber;
+
+        private Execution(EntityManager em) {
+            this.em = em;
+        }
+
+        /**
+         * Informa o valor de um parâmetro
+         * @param name Nome do parâmetro
+         * @param value Valor
+         * @return objeto de execução
+         */
+        public Execution bind( String name, Object value ) {
+            if ( ! paramNames.contains(name) ) {
+                throw new RuntimeException("Parâmetro não declarado na consulta: " + name);
+            }
+            Function<String, String> normalizer = paramNormalizers.get(name);
+            values.put(name, normalizer != null && value instanceof String ? normalizer.apply((String) value) : value);
+            return this;
+        }
+
+        /**
+         * Define o tamanho das páginas, em caso de paginação
+         * @param pageSize Número de registros por página
+         * @return objeto de execução
+         */
+        public Execution setPageSize( Integer pageSize ) {
+            this.executionPageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Define a pagina que serah retornada (informe <b>null</b> para desativar a paginação)
+         * @param pageNumber Número da página
+         * @return objeto de execução
+         */
+        public Execution page( Integer pageNumber ) {
+            this.executionPageNumber = pageNumber;
+            return this;
+        }
+
+        /**
+         * Obtem lista com os resultados
+         * @return Lista de resultados
+         */
+        public List<T> getResults() {
+            if ( contradiction ) {
+                checkParams();
+                return new ArrayList<>();
+            }
+            if ( executionPageNumber != null && idPageQuery != null ) {
+                return getResultsByIdPage();
+            }
+            QueryListeners.Timer timer = QueryListeners.start(fingerprint, entityClass, QueryOperation.GET_RESULTS);
+            TypedQuery<T> typedQuery = createSelectQuery();
+            if ( executionPageNumber != null ) {
+                typedQuery.setFirstResult((executionPageNumber - 1) * executionPageSize).setMaxResults(executionPageSize);
+            }
+            timer.built();
+            return timer.execute( typedQuery::getResultList );
+        }
+
+        /**
+         * Paginação em duas etapas: a página de ids e, em seguida, as entidades desses ids com as coleções
+         */
+        private List<T> getResultsByIdPage() {
+            QueryListeners.Timer timer = QueryListeners.start(fingerprint, entityClass, QueryOperation.GET_RESULTS);
+            TypedQuery<Tuple> typedIdQuery = createQuery(idPageQuery);
+            typedIdQuery.setFirstResult((executionPageNumber - 1) * executionPageSize).setMaxResults(executionPageSize);
+            timer.built();
+
+            return timer.execute( () -> {
+                List<Object> ids = new ArrayList<>();
+                for (Tuple tuple : typedIdQuery.getResultList()) {
+                    ids.add( tuple.get(0) );
+                }
+                if ( ids.isEmpty() ) {
+                    return new ArrayList<>();
+                }
+
+                TypedQuery<T> typedQuery = em.createQuery(fetchByIdsQuery);
+                setupHints(typedQuery);
+                setupGraph(typedQuery);
+                typedQuery.setParameter(IDS_PARAM, ids);
+
+                return JpaCriteriaHelper.sortByIds(ids, typedQuery.getResultList(), em.getEntityManagerFactory().getPersistenceUnitUtil());
+            } );
+        }
+
+        /**
+         * Obtem apenas o primeiro registro do resultado da consulta
+         * @return O primeiro objeto retornado da consulta ou <b>null</b> se a consulta não retornar resultados
+         */
+        public T getFirstResult() {
+            if ( contradiction ) {
+                checkParams();
+                return null;
+            }
+            QueryListeners.Timer timer = QueryListeners.start(fingerprint, entityClass, QueryOperation.GET_RESULTS);
+            TypedQuery<T> typedQuery = createSelectQuery().setMaxResults(1);
+            timer.built();
+            List<T> resultList = timer.execute( typedQuery::getResultList );
+            return resultList.isEmpty() ? null : resultList.get(0);
+        }
+
+        /**
+         * Obtem unico registro do resultado da consulta
+         * @return O objeto retornado da consulta
+         */
+        public T getSingleResult() {
+            if ( contradiction ) {
+                checkParams();
+                throw new NoResultException("Nenhum registro atende às condições da consulta: " + fingerprint);
+            }
+            QueryListeners.Timer timer = QueryListeners.start(fingerprint, entityClass, QueryOperation.GET_SINGLE_RESULT);
+            TypedQuery<T> typedQuery = createSelectQuery();
+            timer.built();
+            return timer.execute( typedQuery::getSingleResult );
+        }
+
+        /**
+         * Efetua a contagem dos registros da consulta
+         * @return numero de registros retornados pela consulta
+         */
+        public long count() {
+            if ( contradiction ) {
+                checkParams();
+                return 0;
+            }
+            QueryListeners.Timer timer = QueryListeners.start(fingerprint, entityClass, QueryOperation.COUNT);
+            TypedQuery<Long> typedQuery = createQuery(countQuery);
+            timer.built();
+            return timer.execute( typedQuery::getSingleResult );
+        }
+
+        private TypedQuery<T> createSelectQuery() {
+            TypedQuery<T> typedQuery = createQuery(selectQuery);
+            setupGraph(typedQuery);
+            return typedQuery;
+        }
+
+        private <R> TypedQuery<R> createQuery( CriteriaQuery<R> criteriaQuery ) {
+            checkParams();
+            TypedQuery<R> typedQuery = em.createQuery(criteriaQuery);
+            setupHints(typedQuery);
+            for (Entry<String, Object> value : values.entrySet()) {
+                typedQuery.setParameter(value.getKey(), value.getValue());
+            }
+            return typedQuery;
+        }
+
+        private void setupHints( TypedQuery<?> typedQuery ) {
+            for (Entry<String, Object> hint : hints.entrySet()) {
+                typedQuery.setHint(hint.getKey(), hint.getValue());
+            }
+            if ( flushMode != null ) {
+                typedQuery.setFlushMode(flushMode);
+            }
+        }
+
+        private void setupGraph( TypedQuery<T> typedQuery ) {
+            if ( graphHint != null ) {
+                typedQuery.setHint(graphHint, JpaCriteriaHelper.createEntityGraph(em, entityClass, graphPaths));
+            }
+        }
+
+        private void checkParams() {
+            if ( values.size() != paramNames.size() ) {
+                throw new RuntimeException("Parâmetros não informados: " + missingParams());
+            }
+        }
+
+        private List<String> missingParams() {
+            List<String> missing = new ArrayList<>(paramNames);
+            missing.removeAll(values.keySet());
+            return missing;
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.jpahelper;
+
+/**
+ * Variante de {@link PaginationI} para paginação por chave (seek).
+ * Quando {@link #getCursor()} é informado, o número da página é ignorado e a página seguinte ao cursor é retornada.
+ */
+public interface CursorPaginationI extends PaginationI {
+
+    String getCursor();
+
+}
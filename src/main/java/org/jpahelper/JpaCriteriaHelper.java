@@ -1,31 +1,78 @@
 package org.jpahelper;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.persistence.EntityGraph;
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.Subgraph;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.ListAttribute;
+import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.SingularAttribute;
 
+import org.jpahelper.AttributePaths.ResolvedPath;
+import org.jpahelper.AttributePaths.Step;
+
 /**
  * Classe utilitária para facilitação das chamadas mais simples à JPA utilizando CriteriaBuilder.
  * @author mauricio.guzinski e pietro.biasuz
@@ -33,13 +80,60 @@ import javax.persistence.metamodel.SingularAttribute;
  */
 public class JpaCriteriaHelper<T> {
 
-    public enum ComparatorOperator { EQUAL, NOT_EQUAL, LIKE, LIKE_IGNORE_CASE, BETWEEN, GREATER_THAN, LESS_THAN, IN };
+    public enum ComparatorOperator { EQUAL, NOT_EQUAL, LIKE, LIKE_IGNORE_CASE, BETWEEN, GREATER_THAN, LESS_THAN, IN
+        , STARTS_WITH, ENDS_WITH, CONTAINS, STARTS_WITH_IGNORE_CASE, ENDS_WITH_IGNORE_CASE, CONTAINS_IGNORE_CASE };
+    public enum CaseFolding { NONE, LOWER, UPPER };
     public enum LogicalOperator { AND, OR };
     public enum OrderDirection { ASC, DESC };
+    public enum QueryOperation { GET_RESULTS, GET_SINGLE_RESULT, GET_TUPLE_RESULTS, GET_GROUP_RESULTS, EXISTS, COUNT, SUM, SUMMARIZE, EXECUTE, DELETE };
     private enum SqlOperation { SELECT, UPDATE };
 
     private static final Integer DEFAULT_PAGE_SIZE = 50;
 
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final String HINT_HIBERNATE_FETCH_SIZE = "org.hibernate.fetchSize";
+
+    private static final String HINT_ECLIPSELINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+
+    private static final String HINT_FETCH_GRAPH = "javax.persistence.fetchgraph";
+
+    private static final String HINT_LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    private static final String HINT_HIBERNATE_READ_ONLY = "org.hibernate.readOnly";
+
+    private static final String HINT_ECLIPSELINK_READ_ONLY = "eclipselink.read-only";
+
+    private static final String HINT_CACHE_RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+
+    private static final String HINT_CACHE_STORE_MODE = "javax.persistence.cache.storeMode";
+
+    private static final String HINT_HIBERNATE_CACHEABLE = "org.hibernate.cacheable";
+
+    private static final String HINT_HIBERNATE_CACHE_REGION = "org.hibernate.cacheRegion";
+
+    private static final String HINT_ECLIPSELINK_QUERY_CACHE = "eclipselink.query-results-cache";
+
+    private static volatile boolean defaultReadOnly;
+
+    private static volatile Integer defaultFetchSize;
+
+    private static volatile FlushModeType defaultFlushMode;
+
+    private static final Map<String, Object> defaultHints = new ConcurrentHashMap<>();
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private static volatile CaseFolding defaultCaseFolding = CaseFolding.UPPER;
+
+    private static final ConcurrentMap<List<Object>, TextFolding> textFoldings = new ConcurrentHashMap<>();
+
+    private static final int MAX_COMPILED_QUERIES = 1000;
+
+    /** Consultas compiladas por EntityManagerFactory e, em cada uma, pela forma da consulta (as menos usadas são descartadas) */
+    private static final Map<EntityManagerFactory, Map<List<Object>, CompiledQuery<?>>> compiledQueries =
+            Collections.synchronizedMap(new WeakHashMap<EntityManagerFactory, Map<List<Object>, CompiledQuery<?>>>());
+
     private EntityManager em;
 
     private CriteriaBuilder criteriaBuilder;
@@ -54,16 +148,144 @@ public class JpaCriteriaHelper<T> {
 
     private Integer pageNumber;
 
+    private List<Object> seekKeys;
+
+    private Integer fetchSize;
+
+    private Boolean readOnly;
+
+    private FlushModeType flushMode;
+
+    private boolean cacheable;
+
+    private String cacheRegion;
+
+    private CacheRetrieveMode cacheRetrieveMode;
+
+    private CacheStoreMode cacheStoreMode;
+
+    private Map<String, Object> hints = new LinkedHashMap<>();
+
+    private Integer inChunkSize;
+
+    private EntityManagerFactory inChunkEntityManagerFactory;
+
+    private Executor inChunkExecutor;
+
+    private QueryResultCache resultCache;
+
     private Class<T> entityClass;
 
     private List<String> directFetches = new ArrayList<>();
 
     private List<ListFetch<?>> listFetches = new ArrayList<>();
 
-    private Map<Path<?>, From<?, ?>> joinsMap = new HashMap<>();
+    private List<List<String>> graphPaths = new ArrayList<>();
+
+    private List<List<String>> groupFields = new ArrayList<>();
+
+    private List<HavingEntry> havings = new ArrayList<>();
+
+    private List<AggregateOrder> aggregateOrders = new ArrayList<>();
+
+    private String graphHint;
+
+    private Map<List<Object>, From<?, ?>> joinsMap = new HashMap<>();
+
+    /** Entradas WHERE a partir das quais {@link #optimizedWheres} foi calculado */
+    private List<WhereEntry> optimizedWheresSource;
+
+    private List<WhereEntry> optimizedWheres;
 
     private SqlOperation sqlOperation;
 
+    /**
+     * Marcador de parâmetro nomeado, utilizado no lugar de valores literais em consultas compiladas
+     * (ver {@link JpaCriteriaHelper#compile()})
+     */
+    public static final class Param {
+
+        private final String name;
+
+        private Param(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Param && ((Param) obj).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return ":" + name;
+        }
+    }
+
+    /**
+     * Forma de comparação sem distinção de maiúsculas de uma propriedade texto: função aplicada à coluna, ou uma
+     * propriedade "sombra" que guarda o valor já normalizado
+     */
+    private static class TextFolding {
+
+        private final CaseFolding caseFolding;
+
+        private final String shadowFieldName;
+
+        private final Function<String, String> normalizer;
+
+        private TextFolding(CaseFolding caseFolding, String shadowFieldName, Function<String, String> normalizer) {
+            this.caseFolding     = caseFolding;
+            this.shadowFieldName = shadowFieldName;
+            this.normalizer      = normalizer;
+        }
+    }
+
+    /**
+     * Condição HAVING sobre uma agregação
+     */
+    private static class HavingEntry {
+
+        private final Aggregate aggregate;
+
+        private final ComparatorOperator comparatorOperator;
+
+        private final Comparable<?> valueIni;
+
+        private final Comparable<?> valueEnd;
+
+        private HavingEntry(Aggregate aggregate, ComparatorOperator comparatorOperator, Comparable<?> valueIni, Comparable<?> valueEnd) {
+            this.aggregate          = aggregate;
+            this.comparatorOperator = comparatorOperator;
+            this.valueIni           = valueIni;
+            this.valueEnd           = valueEnd;
+        }
+    }
+
+    /**
+     * Ordenação por uma agregação
+     */
+    private static class AggregateOrder {
+
+        private final Aggregate aggregate;
+
+        private final OrderDirection order;
+
+        private AggregateOrder(Aggregate aggregate, OrderDirection order) {
+            this.aggregate = aggregate;
+            this.order     = order;
+        }
+    }
+
     private class ListFetch<E> {
         private String attribute;
         private Class<E> clazz;
@@ -90,6 +312,15 @@ public class JpaCriteriaHelper<T> {
 
         private LogicalOperator logicalOperator;
 
+        private ResolvedPath path;
+
+        private List<WhereEntry> group;
+
+        public WhereEntry(List<WhereEntry> group, LogicalOperator logicalOperator) {
+            this.group           = group;
+            this.logicalOperator = logicalOperator;
+        }
+
         public WhereEntry(List<String> fieldNames
                 ,ComparatorOperator comparatorOperator
                 ,Object valueIni
@@ -100,6 +331,7 @@ public class JpaCriteriaHelper<T> {
             this.valueIni           = valueIni;
             this.valueEnd           = valueEnd;
             this.logicalOperator    = logicalOperator;
+            this.path               = resolvePath(fieldNames);
         }
     }
 
@@ -113,19 +345,164 @@ public class JpaCriteriaHelper<T> {
 
         private OrderDirection order;
 
+        private ResolvedPath path;
+
         public OrderEntry(List<String> fieldNames, OrderDirection order) {
             this.fieldNames = fieldNames;
             this.order = order;
+            this.path = resolvePath(fieldNames);
         }
     }
 
     private JpaCriteriaHelper( EntityManager em, Class<T> entityClass, SqlOperation sqlOperation ) {
         this.em              = em;
         this.entityClass     = entityClass;
-        this.criteriaBuilder = em.getCriteriaBuilder();
+        this.criteriaBuilder = em != null ? em.getCriteriaBuilder() : null;
         this.sqlOperation    = sqlOperation;
     }
 
+    /**
+     * Cria uma cópia independente deste objeto de consulta, associada ao EntityManager informado
+     */
+    private JpaCriteriaHelper<T> copy( EntityManager em ) {
+        JpaCriteriaHelper<T> copy = new JpaCriteriaHelper<>( em, entityClass, sqlOperation );
+        copy.wheres.addAll( this.em == null ? copy.rebind(wheres) : wheres );
+        for (OrderEntry orderEntry : orders) {
+            copy.orders.add( copy.new OrderEntry(orderEntry.fieldNames, orderEntry.order) );
+        }
+        copy.updates.putAll(updates);
+        copy.pageSize   = pageSize;
+        copy.pageNumber = pageNumber;
+        copy.seekKeys   = seekKeys;
+        copy.fetchSize  = fetchSize;
+        copy.readOnly   = readOnly;
+        copy.flushMode  = flushMode;
+        copy.cacheable  = cacheable;
+        copy.cacheRegion = cacheRegion;
+        copy.cacheRetrieveMode = cacheRetrieveMode;
+        copy.cacheStoreMode = cacheStoreMode;
+        copy.hints.putAll(hints);
+        copy.inChunkSize = inChunkSize;
+        copy.inChunkEntityManagerFactory = inChunkEntityManagerFactory;
+        copy.inChunkExecutor = inChunkExecutor;
+        copy.resultCache = resultCache;
+        copy.directFetches.addAll(directFetches);
+        for (ListFetch<?> listFetch : listFetches) {
+            copy.listFetches.add( copy.new ListFetch<>(listFetch.attribute, listFetch.clazz) );
+        }
+        copy.graphPaths.addAll(graphPaths);
+        copy.groupFields.addAll(groupFields);
+        copy.havings.addAll(havings);
+        copy.aggregateOrders.addAll(aggregateOrders);
+        copy.graphHint = graphHint;
+        return copy;
+    }
+
+    /**
+     * Recria as entradas WHERE de um objeto criado por {@link #spec(Class)}, resolvendo agora os caminhos no Metamodel
+     */
+    private List<WhereEntry> rebind( List<WhereEntry> wheres ) {
+        List<WhereEntry> entries = new ArrayList<>();
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                entries.add( new WhereEntry(rebind(whereEntry.group), whereEntry.logicalOperator) );
+            } else {
+                entries.add( new WhereEntry(whereEntry.fieldNames, whereEntry.comparatorOperator, whereEntry.valueIni
+                        , whereEntry.valueEnd, whereEntry.logicalOperator) );
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Define se as consultas são, por padrão, somente leitura (ver {@link #setReadOnly(boolean)})
+     * @param readOnly <b>true</b> para somente leitura
+     */
+    public static void setDefaultReadOnly( boolean readOnly ) {
+        defaultReadOnly = readOnly;
+    }
+
+    /**
+     * Define o fetch size padrão das consultas (ver {@link #setFetchSize(Integer)})
+     * @param fetchSize Número de linhas (informe <b>null</b> para usar o padrão do provedor)
+     */
+    public static void setDefaultFetchSize( Integer fetchSize ) {
+        defaultFetchSize = fetchSize;
+    }
+
+    /**
+     * Define o modo de flush padrão das consultas (ver {@link #setFlushMode(FlushModeType)})
+     * @param flushMode Modo de flush (informe <b>null</b> para usar o do EntityManager)
+     */
+    public static void setDefaultFlushMode( FlushModeType flushMode ) {
+        defaultFlushMode = flushMode;
+    }
+
+    /**
+     * Define um hint aplicado por padrão a todas as consultas (ver {@link #setHint(String, Object)})
+     * @param name Nome do hint
+     * @param value Valor (informe <b>null</b> para remover o hint padrão)
+     */
+    public static void setDefaultHint( String name, Object value ) {
+        if ( value == null ) {
+            defaultHints.remove(name);
+        } else {
+            defaultHints.put(name, value);
+        }
+    }
+
+    /**
+     * Define como a propriedade é comparada pelos operadores sem distinção de maiúsculas (<code>*_IGNORE_CASE</code>):
+     * <li>{@link CaseFolding#NONE}: a coluna é comparada diretamente (ex.: colação case-insensitive no banco),
+     *     permitindo o uso do índice comum da coluna em buscas por prefixo;
+     * <li>{@link CaseFolding#LOWER} / {@link CaseFolding#UPPER}: <code>lower(coluna)</code> / <code>upper(coluna)</code>,
+     *     que usam índices funcionais correspondentes.
+     * @param entityClass Entidade
+     * @param fieldName Propriedade texto (pode ser caminho com pontos)
+     * @param caseFolding Forma de comparação
+     */
+    public static void setCaseFolding( Class<?> entityClass, String fieldName, CaseFolding caseFolding ) {
+        textFoldings.put( Arrays.asList(entityClass, fieldName), new TextFolding(caseFolding, null, null) );
+    }
+
+    /**
+     * Define que os operadores sem distinção de maiúsculas comparam a propriedade através de outra propriedade do mesmo
+     * objeto, que guarda o valor já normalizado (ex.: <code>nomeBusca</code>, em minúsculas e sem acentos). O valor
+     * pesquisado é normalizado com a mesma função e a coluna sombra é comparada sem funções, usando seu índice comum.
+     * @param entityClass Entidade
+     * @param fieldName Propriedade texto (pode ser caminho com pontos)
+     * @param shadowFieldName Nome da propriedade sombra, no mesmo objeto da propriedade original
+     * @param normalizer Normalização aplicada ao valor pesquisado (a mesma usada para gravar a propriedade sombra)
+     */
+    public static void setShadowAttribute( Class<?> entityClass, String fieldName, String shadowFieldName, Function<String, String> normalizer ) {
+        textFoldings.put( Arrays.asList(entityClass, fieldName), new TextFolding(null, shadowFieldName, normalizer) );
+    }
+
+    /**
+     * Define a forma de comparação padrão das propriedades sem {@link #setCaseFolding(Class, String, CaseFolding)}
+     * (padrão: {@link CaseFolding#UPPER})
+     * @param caseFolding Forma de comparação
+     */
+    public static void setDefaultCaseFolding( CaseFolding caseFolding ) {
+        defaultCaseFolding = caseFolding;
+    }
+
+    /**
+     * Registra um listener notificado a cada operação executada pelo helper. Sem listeners registrados, nenhuma medição é feita.
+     * @param listener Listener (por exemplo {@link QueryMetrics})
+     */
+    public static void addQueryListener( QueryListener listener ) {
+        QueryListeners.add( Objects.requireNonNull(listener) );
+    }
+
+    /**
+     * Remove um listener registrado com {@link #addQueryListener(QueryListener)}
+     * @param listener Listener
+     */
+    public static void removeQueryListener( QueryListener listener ) {
+        QueryListeners.remove(listener);
+    }
+
     /**
      * Cria o objeto de consulta para executar a query
      * @param em EntityManager
@@ -136,6 +513,17 @@ public class JpaCriteriaHelper<T> {
         return new JpaCriteriaHelper<>( em, entityClazz, SqlOperation.SELECT );
     }
 
+    /**
+     * Cria o objeto de consulta sem EntityManager, para montar uma {@link QuerySpec} com {@link #toSpec()}.
+     * As propriedades são validadas apenas na primeira execução, e as operações de consulta não podem ser chamadas
+     * diretamente sobre este objeto.
+     * @param entityClazz Classe de destino
+     * @return objeto de consulta
+     */
+    public static <X> JpaCriteriaHelper<X> spec( Class<X> entityClazz ) {
+        return new JpaCriteriaHelper<>( null, entityClazz, SqlOperation.SELECT );
+    }
+
     /**
      * Cria o objeto para update
      * @param em EntityManager
@@ -146,6 +534,25 @@ public class JpaCriteriaHelper<T> {
         return new JpaCriteriaHelper<>( em, entityClazz, SqlOperation.UPDATE );
     }
 
+    /**
+     * Cria um marcador de parâmetro nomeado para ser usado como valor em clausulas WHERE de consultas compiladas
+     * @param name Nome do parâmetro
+     * @return marcador do parâmetro
+     */
+    public static Param param( String name ) {
+        return new Param(name);
+    }
+
+    /**
+     * Cria um lote de updates heterogêneos sobre a entidade (ver {@link BatchUpdate})
+     * @param em EntityManager
+     * @param entityClazz Classe de destino
+     * @return objeto de update em lote
+     */
+    public static <X> BatchUpdate<X> batchUpdate( EntityManager em, Class<X> entityClazz ) {
+        return new BatchUpdate<>( em, entityClazz );
+    }
+
     /**
      * Atribui valor a um campo (em uma operação de update)
      * @param fieldName Nome da propriedade
@@ -164,6 +571,7 @@ public class JpaCriteriaHelper<T> {
      */
     public JpaCriteriaHelper<T> set( List<String> fieldNames, Object value ) {
         demandsOperation(SqlOperation.UPDATE);
+        resolvePath(fieldNames);
         updates.put(fieldNames, value);
         return this;
     }
@@ -394,6 +802,36 @@ public class JpaCriteriaHelper<T> {
         return this;
     }
 
+    /**
+     * Inclui um grupo de condições entre parênteses, ligado às condições anteriores por AND.
+     * Ex.: <code>where("a", 1).andGroup(g -&gt; g.where("b", 2).or("c", 3))</code> gera <code>a = 1 AND (b = 2 OR c = 3)</code>
+     * @param group Define as condições do grupo
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> andGroup( Consumer<JpaCriteriaHelper<T>> group ) {
+        wheres.add( new WhereEntry(getGroupEntries(group), LogicalOperator.AND) );
+        return this;
+    }
+
+    /**
+     * Inclui um grupo de condições entre parênteses, ligado às condições anteriores por OR (ver {@link #andGroup(Consumer)})
+     * @param group Define as condições do grupo
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> orGroup( Consumer<JpaCriteriaHelper<T>> group ) {
+        wheres.add( new WhereEntry(getGroupEntries(group), LogicalOperator.OR) );
+        return this;
+    }
+
+    private List<WhereEntry> getGroupEntries( Consumer<JpaCriteriaHelper<T>> group ) {
+        JpaCriteriaHelper<T> groupQuery = new JpaCriteriaHelper<>( em, entityClass, sqlOperation );
+        group.accept(groupQuery);
+        if ( groupQuery.wheres.isEmpty() ) {
+            throw new RuntimeException("Grupo de condições vazio.");
+        }
+        return Collections.unmodifiableList(groupQuery.wheres);
+    }
+
     /**
      * Inclui clausula ORDER BY
      * @param fieldNames Nome da propriedade
@@ -547,12 +985,51 @@ public class JpaCriteriaHelper<T> {
 
     /**
      * Obtem lista com os resultados
+     * <p>
+     * Com paginação e fetch de coleções, a consulta é feita em duas etapas: a página é aplicada sobre os ids distintos
+     * da entidade e, em seguida, apenas as entidades desses ids são buscadas com suas coleções, na mesma ordem.
      * @return Lista de resultados
      */
     public List<T> getResults() {
         demandsOperation(SqlOperation.SELECT);
+        if ( isContradiction() ) {
+            return new ArrayList<>();
+        }
+        if ( resultCache != null ) {
+            if ( QueryResultCache.hasPendingWrite(entityClass) ) {
+                // alterações ainda não confirmadas só são visíveis no EntityManager da transação
+                return uncached().getResults();
+            }
+            return new ArrayList<>( getCached(getCacheKey("getResults"), QueryOperation.GET_RESULTS, () -> {
+                // entidades compartilhadas entre chamadas (e threads) são carregadas em um EntityManager próprio, para
+                // não desanexar as instâncias gerenciadas (e possivelmente alteradas) deste EntityManager
+                EntityManager cacheEm = em.getEntityManagerFactory().createEntityManager();
+                try {
+                    JpaCriteriaHelper<T> loader = copy(cacheEm);
+                    loader.resultCache = null;
+                    return Collections.unmodifiableList( loader.getResults() );
+                } finally {
+                    cacheEm.close();
+                }
+            }) );
+        }
+
+        // com ORDER BY, os blocos ficam em uma única consulta (ligados por OR), preservando a ordenação do banco
+        WhereEntry inEntry = orders.isEmpty() ? getSplittableIn() : null;
+        if ( inEntry != null ) {
+            List<T> results = new ArrayList<>();
+            runInChunks(inEntry, JpaCriteriaHelper::getResults).forEach(results::addAll);
+            return results;
+        }
+
+        String idName = getIdAttributeName();
+        if ( ( pageNumber != null || seekKeys != null ) && idName != null && fetchesCollections() ) {
+            return getResultsByIdPage(idName);
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_RESULTS);
         CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClass);
-        Root<T> root = criteriaQuery.from(entityClass);
+        Root<T> root = newRoot(criteriaQuery::from);
 
         criteriaQuery.select(root);
 
@@ -560,72 +1037,927 @@ public class JpaCriteriaHelper<T> {
 
         TypedQuery<T> typedQuery = em.createQuery(criteriaQuery);
 
+        setupHints(typedQuery);
+        setupGraph(typedQuery);
         setupPagination(typedQuery);
+        timer.built();
 
-        return typedQuery.getResultList();
+        return timer.execute( typedQuery::getResultList );
     }
 
-    private <E, Y> void orderBy(CriteriaQuery<E> criteriaQuery, Root<Y> root) {
-        if (!orders.isEmpty()) {
-            ArrayList<Order> jpaOrders = new ArrayList<>();
-            for (OrderEntry orderField : orders) {
-                if (orderField.order.equals(OrderDirection.ASC)) {
-                    jpaOrders.add(criteriaBuilder.asc(getPath(orderField.fieldNames, root)));
-                } else {
-                    jpaOrders.add(criteriaBuilder.desc(getPath(orderField.fieldNames, root)));
-                }
+    /**
+     * @return <b>true</b> se algum fetch (JOIN FETCH ou entity graph) carrega coleções, multiplicando as linhas da consulta
+     */
+    private boolean fetchesCollections() {
+        if ( ! listFetches.isEmpty() ) {
+            return true;
+        }
+        for (String fetch : directFetches) {
+            if ( ! resolvePath(Arrays.asList(fetch)).isSingleValued() ) {
+                return true;
+            }
+        }
+        for (List<String> graphPath : graphPaths) {
+            if ( ! resolvePath(graphPath).isSingleValued() ) {
+                return true;
             }
-            criteriaQuery.orderBy(jpaOrders);
         }
+        return false;
     }
 
-    public void delete() {
-        CriteriaDelete<T> criteriaDelete = criteriaBuilder.createCriteriaDelete(entityClass);
+    /**
+     * Paginação em duas etapas (ver {@link #getResults()}): a primeira consulta pagina os ids distintos segundo o WHERE
+     * e o ORDER BY; a segunda busca as entidades desses ids com os fetches, e a ordem da primeira é restaurada em memória
+     */
+    private List<T> getResultsByIdPage( String idName ) {
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_RESULTS);
+
+        // --- 1: PÁGINA DE IDS ---
+        TypedQuery<Tuple> typedIdQuery = em.createQuery( createIdPageQuery(idName) );
+        setupHints(typedIdQuery);
+        setupPagination(typedIdQuery);
+        timer.built();
+
+        return timer.execute( () -> {
+            List<Object> ids = new ArrayList<>();
+            for (Tuple tuple : typedIdQuery.getResultList()) {
+                ids.add( tuple.get(0) );
+            }
+            if ( ids.isEmpty() ) {
+                return new ArrayList<>();
+            }
 
-        Root<T> root = criteriaDelete.from(entityClass);
+            // --- 2: ENTIDADES DA PÁGINA, COM AS COLEÇÕES ---
+            TypedQuery<T> typedQuery = em.createQuery( createFetchByIdsQuery(idName, idPath -> getInPredicate(idPath, ids)) );
+            setupHints(typedQuery);
+            setupGraph(typedQuery);
 
-        if (!wheres.isEmpty()) {
-            criteriaDelete.where( getPredicates(root, wheres) );
-        }
+            return sortByIds(ids, typedQuery.getResultList(), em.getEntityManagerFactory().getPersistenceUnitUtil());
+        } );
+    }
 
-        em.createQuery(criteriaDelete).executeUpdate();
+    /**
+     * Primeira etapa de {@link #getResultsByIdPage(String)}: ids distintos segundo o WHERE e o ORDER BY.
+     * As colunas do ORDER BY também são selecionadas, pois alguns bancos exigem isso em SELECT DISTINCT.
+     */
+    private CriteriaQuery<Tuple> createIdPageQuery( String idName ) {
+        CriteriaQuery<Tuple> idQuery = criteriaBuilder.createTupleQuery();
+        Root<T> idRoot = newRoot(idQuery::from);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add( idRoot.get(idName) );
+        for (OrderEntry orderEntry : orders) {
+            selections.add( getPath(orderEntry.path, idRoot) );
+        }
+        idQuery.multiselect(selections).distinct(true);
+        setupWhere(idQuery, idRoot);
+        orderBy(idQuery, idRoot);
+        return idQuery;
     }
 
-    private <C, R> void setupQuery(CriteriaQuery<C> criteriaQuery, Root<R> root) {
-        //FETCH JOINS
+    /**
+     * Segunda etapa de {@link #getResultsByIdPage(String)}: entidades dos ids da página, com os fetches
+     */
+    private CriteriaQuery<T> createFetchByIdsQuery( String idName, Function<Path<?>, Predicate> idPredicate ) {
+        CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClass);
+        Root<T> root = newRoot(criteriaQuery::from);
+        criteriaQuery.select(root).distinct(true);
         directFetch(root);
-
         listFetch(root);
+        criteriaQuery.where( idPredicate.apply(root.get(idName)) );
+        return criteriaQuery;
+    }
 
-        if (!wheres.isEmpty()) {
-            criteriaQuery.where(getPredicates(root, wheres));
+    /**
+     * Restaura em memória a ordem da página de ids nas entidades buscadas pelos ids (usado também por {@link CompiledQuery})
+     */
+    static <E> List<E> sortByIds( List<Object> ids, List<E> entities, PersistenceUnitUtil persistenceUnitUtil ) {
+        Map<Object, E> entitiesById = new HashMap<>();
+        for (E entity : entities) {
+            entitiesById.put( persistenceUnitUtil.getIdentifier(entity), entity );
         }
 
-        orderBy(criteriaQuery, root);
+        List<E> results = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            E entity = entitiesById.get(id);
+            if ( entity != null ) {
+                results.add(entity);
+            }
+        }
+        return results;
     }
 
-    private <R> void listFetch(Root<R> root) {
-        for (JpaCriteriaHelper<T>.ListFetch<?> listFetch : listFetches) {
-            ListAttribute<? super R, ?> listAttribute = root.getModel().getList(listFetch.attribute, listFetch.clazz);
-            root.fetch(listAttribute);
-        }
+    /**
+     * Obtem a página atual dos resultados junto com o total de registros da consulta
+     * (página 1, se nenhuma página tiver sido informada).
+     * <p>
+     * A contagem não é executada quando a página retornada já permite deduzir o total
+     * (página incompleta em paginação por número).
+     * @return página de resultados
+     */
+    public Page<T> getPage() {
+        return getPage(null, null);
     }
 
-    private <R> void directFetch(Root<R> root) {
-        for (String fetch : directFetches) {
-            root.fetch(fetch);
+    /**
+     * Obtem a página atual dos resultados junto com o total de registros da consulta (ver {@link #getPage()}),
+     * executando a contagem em paralelo, em um EntityManager próprio.
+     * <p>
+     * Quando a página retornada já permite deduzir o total, a contagem em paralelo é cancelada (e não chega a ser
+     * executada, se ainda não tiver iniciado).
+     * @param emf Fábrica do EntityManager da contagem (informe <b>null</b> para contar neste EntityManager, após a página)
+     * @param executor Executor da contagem (obrigatório quando <code>emf</code> é informado)
+     * @return página de resultados
+     */
+    public Page<T> getPage( EntityManagerFactory emf, Executor executor ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( emf != null ) {
+            Objects.requireNonNull(executor, "Informe o executor da contagem em paralelo.");
         }
+        JpaCriteriaHelper<T> pageQuery = copy(em);
+        if ( pageQuery.pageNumber == null && pageQuery.seekKeys == null ) {
+            pageQuery.pageNumber = 1;
+        }
+
+        CompletableFuture<Long> parallelCount = emf != null ? countAsync(emf, executor) : null;
+
+        List<T> content;
+        try {
+            content = pageQuery.getResults();
+        } catch (RuntimeException e) {
+            if ( parallelCount != null ) {
+                parallelCount.cancel(false);
+            }
+            throw e;
+        }
+
+        long total;
+        if ( pageQuery.pageNumber != null && content.size() < pageSize && ( ! content.isEmpty() || pageQuery.pageNumber == 1 ) ) {
+            total = (long) (pageQuery.pageNumber - 1) * pageSize + content.size();
+            if ( parallelCount != null ) {
+                parallelCount.cancel(false);
+            }
+        } else if ( parallelCount != null ) {
+            total = join(parallelCount);
+        } else {
+            total = count();
+        }
+
+        return new Page<>(content, total, pageQuery.pageNumber, pageSize);
     }
 
     /**
-     * Define o tamanho das páginas, em caso de paginação (tamanho padrão: 50)
-     * @param pageSize Número de registros por página
-     * @return objeto de consulta
+     * Versão assíncrona de {@link #getResults()}. As entidades retornadas estão desanexadas (o EntityManager da
+     * consulta é fechado ao final).
+     * @param emf Fábrica do EntityManager próprio da consulta
+     * @param executor Executor da consulta (ex.: executor de virtual threads)
+     * @return resultado futuro
+     * @see #supplyAsync(EntityManagerFactory, Executor, Function)
      */
-    public JpaCriteriaHelper<T> setPageSize(Integer pageSize) {
+    public CompletableFuture<List<T>> getResultsAsync( EntityManagerFactory emf, Executor executor ) {
         demandsOperation(SqlOperation.SELECT);
-        this.pageSize = pageSize;
-        return this;
+        return supplyAsync(emf, executor, JpaCriteriaHelper::getResults);
+    }
+
+    /**
+     * Versão assíncrona de {@link #getFirstResult()}. A entidade retornada está desanexada.
+     * @param emf Fábrica do EntityManager próprio da consulta
+     * @param executor Executor da consulta
+     * @return resultado futuro (<b>null</b> se a consulta não retornar resultados)
+     */
+    public CompletableFuture<T> getFirstResultAsync( EntityManagerFactory emf, Executor executor ) {
+        demandsOperation(SqlOperation.SELECT);
+        return supplyAsync(emf, executor, JpaCriteriaHelper::getFirstResult);
+    }
+
+    /**
+     * Versão assíncrona de {@link #count()}
+     * @param emf Fábrica do EntityManager próprio da consulta
+     * @param executor Executor da consulta
+     * @return contagem futura
+     */
+    public CompletableFuture<Long> countAsync( EntityManagerFactory emf, Executor executor ) {
+        demandsOperation(SqlOperation.SELECT);
+        return supplyAsync(emf, executor, JpaCriteriaHelper::count);
+    }
+
+    /**
+     * Versão assíncrona de {@link #sum(String, Class)}
+     * @param fieldToSum Campo somado
+     * @param resultClass Tipo do resultado
+     * @param emf Fábrica do EntityManager próprio da consulta
+     * @param executor Executor da consulta
+     * @return soma futura
+     */
+    public <S extends Number> CompletableFuture<S> sumAsync( String fieldToSum, Class<S> resultClass, EntityManagerFactory emf, Executor executor ) {
+        demandsOperation(SqlOperation.SELECT);
+        return supplyAsync(emf, executor, query -> query.sum(fieldToSum, resultClass));
+    }
+
+    /**
+     * Versão assíncrona de {@link #sum(SingularAttribute, Class)}
+     * @param fieldToSum Campo somado
+     * @param resultClass Tipo do resultado
+     * @param emf Fábrica do EntityManager próprio da consulta
+     * @param executor Executor da consulta
+     * @return soma futura
+     */
+    public <S extends Number> CompletableFuture<S> sumAsync( SingularAttribute<T, S> fieldToSum, Class<S> resultClass, EntityManagerFactory emf, Executor executor ) {
+        return sumAsync(fieldToSum.getName(), resultClass, emf, executor);
+    }
+
+    /**
+     * Executa a operação no executor informado, sobre uma cópia do estado atual da consulta (alterações posteriores
+     * neste objeto não a afetam), em um EntityManager criado pela fábrica e fechado ao final da execução.
+     * Exceções da operação completam o resultado futuro excepcionalmente.
+     */
+    private <R> CompletableFuture<R> supplyAsync( EntityManagerFactory emf, Executor executor, Function<JpaCriteriaHelper<T>, R> operation ) {
+        Objects.requireNonNull(emf, "Informe a EntityManagerFactory da execução assíncrona.");
+        Objects.requireNonNull(executor, "Informe o executor da execução assíncrona.");
+        JpaCriteriaHelper<T> snapshot = copy(em);
+        return CompletableFuture.supplyAsync(() -> {
+            EntityManager asyncEm = emf.createEntityManager();
+            try {
+                return operation.apply(snapshot.copy(asyncEm));
+            } finally {
+                asyncEm.close();
+            }
+        }, executor);
+    }
+
+    /**
+     * Armazena os resultados de {@link #getResults()}, {@link #getFirstResult()}, {@link #count()} e
+     * {@link #sum(String, Class)} no cache informado, identificados pelas clausulas WHERE, ORDER BY e pela paginação.
+     * As entidades armazenadas são carregadas em um EntityManager próprio, fechado em seguida, e portanto estão
+     * desanexadas (inclusive na chamada que as consulta do banco): relacionamentos LAZY não carregados não estão
+     * disponíveis (use fetch) e alterações não são gravadas. As entidades já gerenciadas pelo EntityManager da consulta
+     * não são afetadas. Enquanto a entidade tiver alterações feitas pelo helper em uma transação não finalizada, o
+     * cache não é usado e a consulta é feita no próprio EntityManager.
+     * @param resultCache Cache de resultados (informe <b>null</b> para desativar)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> cached( QueryResultCache resultCache ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.resultCache = resultCache;
+        return this;
+    }
+
+    private JpaCriteriaHelper<T> uncached() {
+        JpaCriteriaHelper<T> copy = copy(em);
+        copy.resultCache = null;
+        return copy;
+    }
+
+    /**
+     * Obtém o resultado do cache, notificando os {@link QueryListener} quando ele é encontrado (em caso de falta, a
+     * consulta ao banco já é notificada pela própria operação)
+     */
+    private <R> R getCached( List<Object> key, QueryOperation operation, Supplier<R> loader ) {
+        QueryListeners.Timer timer = QueryListeners.start(this, operation);
+        boolean[] loaded = { false };
+        R result = resultCache.get(key, entityClass, () -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        return loaded[0] ? result : timer.cacheHit(result);
+    }
+
+    private List<Object> getCacheKey( Object ... operation ) {
+        List<Object> key = getShapeKey();
+        key.add(em.getEntityManagerFactory());
+        key.addAll(Arrays.asList(operation));
+        key.add(graphHint);
+        key.add(new ArrayList<>(graphPaths));
+        key.add(pageSize);
+        key.add(pageNumber);
+        return key;
+    }
+
+    /**
+     * Define o número de linhas buscadas do banco a cada ida ao JDBC (fetch size)
+     * @param fetchSize Número de linhas (informe <b>null</b> para usar o padrão do provedor)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setFetchSize( Integer fetchSize ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Marca a consulta como somente leitura: as entidades retornadas não são verificadas (dirty checking) nem têm
+     * seu estado copiado no contexto de persistência, reduzindo memória e custo de flush. Alterações nessas
+     * entidades não são gravadas.
+     * @param readOnly <b>true</b> para somente leitura
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setReadOnly( boolean readOnly ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.readOnly = readOnly;
+        return this;
+    }
+
+    /**
+     * Define o modo de flush da consulta (ex.: {@link FlushModeType#COMMIT} evita o flush automático antes da consulta)
+     * @param flushMode Modo de flush (informe <b>null</b> para usar o padrão)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setFlushMode( FlushModeType flushMode ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.flushMode = flushMode;
+        return this;
+    }
+
+    /**
+     * Armazena o resultado da consulta no cache de consultas do provedor JPA (query cache), na região padrão.
+     * Ver {@link #cacheable(String)}.
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> cacheable() {
+        return cacheable(null);
+    }
+
+    /**
+     * Armazena o resultado da consulta no cache de consultas do provedor JPA (query cache), de modo que execuções
+     * repetidas com os mesmos valores sejam atendidas sem ir ao banco. Vale para todas as consultas de leitura
+     * (resultados, contagem, soma, projeções, agrupamentos, ...). O cache de consultas e o cache de segundo nível
+     * precisam estar habilitados na configuração do provedor; caso contrário, a opção é ignorada.
+     * @param region Região do cache (informe <b>null</b> para a região padrão; ignorada por provedores sem regiões)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> cacheable( String region ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.cacheable   = true;
+        this.cacheRegion = region;
+        return this;
+    }
+
+    /**
+     * Define se a consulta pode ler as entidades do cache de segundo nível
+     * @param cacheRetrieveMode Modo de leitura do cache (informe <b>null</b> para usar o padrão)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setCacheRetrieveMode( CacheRetrieveMode cacheRetrieveMode ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.cacheRetrieveMode = cacheRetrieveMode;
+        return this;
+    }
+
+    /**
+     * Define se as entidades lidas pela consulta são gravadas no cache de segundo nível
+     * (ex.: {@link CacheStoreMode#REFRESH} atualiza o cache com os dados do banco)
+     * @param cacheStoreMode Modo de gravação do cache (informe <b>null</b> para usar o padrão)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setCacheStoreMode( CacheStoreMode cacheStoreMode ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.cacheStoreMode = cacheStoreMode;
+        return this;
+    }
+
+    /**
+     * Define um hint repassado ao provedor JPA nas consultas (hints desconhecidos pelo provedor são ignorados)
+     * @param name Nome do hint
+     * @param value Valor (informe <b>null</b> para remover o hint)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setHint( String name, Object value ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( value == null ) {
+            hints.remove(name);
+        } else {
+            hints.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Percorre os resultados da consulta em blocos de tamanho fixo, com memória limitada.
+     * <p>
+     * Os blocos são buscados por paginação por chave sobre o ORDER BY (o id da entidade é incluído como desempate,
+     * quando necessário), cujos campos devem ser propriedades obrigatórias da própria entidade, sem relacionamentos
+     * (verificado antes do primeiro bloco). O cache de resultados não é usado. Após o processamento de cada bloco, suas
+     * entidades são desanexadas do EntityManager.
+     * Cada bloco é lido por completo antes do processamento, portanto nenhum cursor fica aberto entre blocos.
+     * O estado deste objeto de consulta não é alterado.
+     * @param chunkSize Número de registros por bloco
+     * @param consumer Processamento de cada bloco
+     */
+    public void forEachChunk( int chunkSize, Consumer<List<T>> consumer ) {
+        demandsOperation(SqlOperation.SELECT);
+        ChunkIterator chunks = new ChunkIterator(chunkSize);
+        while ( chunks.hasNext() ) {
+            List<T> chunk = chunks.next();
+            consumer.accept(chunk);
+            detach(chunk);
+        }
+    }
+
+    /**
+     * Obtem os resultados como um {@link Stream} lido em blocos de 500 registros (ver {@link #stream(int)})
+     * @return Stream de resultados
+     */
+    public Stream<T> stream() {
+        return stream(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Obtem os resultados como um {@link Stream} lido sob demanda, em blocos (ver {@link #forEachChunk(int, Consumer)}).
+     * As entidades de um bloco são desanexadas do EntityManager quando o bloco seguinte é buscado.
+     * @param chunkSize Número de registros por bloco
+     * @return Stream de resultados
+     */
+    public Stream<T> stream( int chunkSize ) {
+        demandsOperation(SqlOperation.SELECT);
+        ChunkIterator chunks = new ChunkIterator(chunkSize);
+
+        Iterator<T> iterator = new Iterator<T>() {
+            private List<T> chunk = new ArrayList<>();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while ( index >= chunk.size() ) {
+                    detach(chunk);
+                    if ( ! chunks.hasNext() ) {
+                        return false;
+                    }
+                    chunk = chunks.next();
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if ( ! hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(index++);
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Percorre todos os resultados da consulta em paralelo, dividindo-a em faixas de valores de uma propriedade
+     * numérica ou de data (normalmente o id).
+     * <p>
+     * O intervalo entre o menor e o maior valor da propriedade (dentro do WHERE) é dividido em
+     * <code>partitions * 4</code> faixas, distribuídas sob demanda entre <code>partitions</code> tarefas do executor.
+     * Assim, as tarefas que recebem faixas com poucos registros passam a ler as faixas restantes, compensando a
+     * distribuição desigual dos valores. Registros com a propriedade nula formam uma faixa adicional.
+     * <p>
+     * Cada faixa é lida em blocos (ver {@link #forEachChunk(int, Consumer)}) em um EntityManager próprio, criado a
+     * partir da fábrica informada. O consumidor é chamado simultaneamente por várias threads e deve ser thread-safe.
+     * A falha de uma faixa não interrompe as demais: ao final é lançada uma exceção com as faixas que falharam (os
+     * blocos dessas faixas já entregues ao consumidor não são desfeitos).
+     * @param fieldName Propriedade usada na divisão das faixas
+     * @param partitions Número de faixas lidas simultaneamente
+     * @param emf Fábrica dos EntityManagers de cada faixa
+     * @param executor Executor das tarefas (ex.: ForkJoinPool ou executor de virtual threads)
+     * @param chunkSize Número de registros por bloco
+     * @param consumer Processamento de cada bloco
+     * @return total de registros lidos
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    public long scanPartitioned( String fieldName, int partitions, EntityManagerFactory emf, Executor executor
+            , int chunkSize, Consumer<List<T>> consumer ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( partitions < 1 ) {
+            throw new RuntimeException("O número de partições deve ser maior que zero.");
+        }
+        List<String> fieldNames = Arrays.asList(fieldName);
+        ResolvedPath path = resolvePath(fieldNames);
+        if ( ! path.isSingleValued() ) {
+            throw new RuntimeException("A propriedade de particionamento não pode atravessar coleções: " + fieldName);
+        }
+
+        // --- LIMITES DAS FAIXAS ---
+        CriteriaQuery<Tuple> boundsQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = newRoot(boundsQuery::from);
+        Expression<Comparable> field = (Expression<Comparable>) getPath(path, root);
+        boundsQuery.multiselect( criteriaBuilder.least(field), criteriaBuilder.greatest(field)
+                , criteriaBuilder.count(root), criteriaBuilder.count(field) );
+        setupWhere(boundsQuery, root);
+        Tuple bounds = em.createQuery(boundsQuery).getSingleResult();
+
+        List<ScanRange> ranges = new ArrayList<>();
+        if ( bounds.get(0) != null ) {
+            List<Object> limits = PartitionBounds.split(bounds.get(0), bounds.get(1), partitions * 4);
+            for (int i = 1; i < limits.size(); i++) {
+                ranges.add( new ScanRange(limits.get(i - 1), limits.get(i), i == limits.size() - 1) );
+            }
+        }
+        if ( ((Long) bounds.get(2)) > ((Long) bounds.get(3)) ) {
+            ranges.add( new ScanRange(null, null, true) );
+        }
+
+        // --- LEITURA ---
+        Queue<ScanRange> pending = new ConcurrentLinkedQueue<>(ranges);
+        AtomicLong rows = new AtomicLong();
+        Runnable worker = () -> {
+            ScanRange range;
+            while ( (range = pending.poll()) != null ) {
+                EntityManager rangeEm = emf.createEntityManager();
+                try {
+                    JpaCriteriaHelper<T> rangeQuery = copy(rangeEm);
+                    rangeQuery.resultCache = null;
+                    if ( range.from == null ) {
+                        rangeQuery.wheres.add( rangeQuery.new WhereEntry(fieldNames, ComparatorOperator.EQUAL, null, null, LogicalOperator.AND) );
+                    } else {
+                        rangeQuery.wheres.add( rangeQuery.new WhereEntry(fieldNames, ComparatorOperator.BETWEEN, range.from, range.to, LogicalOperator.AND) );
+                        if ( ! range.last ) {
+                            rangeQuery.wheres.add( rangeQuery.new WhereEntry(fieldNames, ComparatorOperator.NOT_EQUAL, range.to, null, LogicalOperator.AND) );
+                        }
+                    }
+                    rangeQuery.forEachChunk(chunkSize, chunk -> {
+                        consumer.accept(chunk);
+                        rows.addAndGet(chunk.size());
+                    });
+                } catch (RuntimeException e) {
+                    range.failure = e;
+                } finally {
+                    rangeEm.close();
+                }
+            }
+        };
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < Math.min(partitions, ranges.size()); i++) {
+            futures.add( CompletableFuture.runAsync(worker, executor) );
+        }
+        for (CompletableFuture<Void> future : futures) {
+            join(future);
+        }
+
+        List<ScanRange> failed = ranges.stream().filter(range -> range.failure != null).collect(Collectors.toList());
+        if ( ! failed.isEmpty() ) {
+            RuntimeException exception = new RuntimeException("Falha na leitura de " + failed.size() + " de " + ranges.size()
+                    + " faixas de " + fieldName + ": " + failed, failed.get(0).failure);
+            failed.stream().skip(1).forEach(range -> exception.addSuppressed(range.failure));
+            throw exception;
+        }
+        return rows.get();
+    }
+
+    /**
+     * Faixa de valores de {@link #scanPartitioned(String, int, EntityManagerFactory, Executor, int, Consumer)}:
+     * <code>[from, to)</code>, ou <code>[from, to]</code> na última faixa, ou valores nulos quando <code>from</code> é nulo
+     */
+    private static class ScanRange {
+
+        private final Object from;
+
+        private final Object to;
+
+        private final boolean last;
+
+        private RuntimeException failure;
+
+        private ScanRange(Object from, Object to, boolean last) {
+            this.from = from;
+            this.to   = to;
+            this.last = last;
+        }
+
+        @Override
+        public String toString() {
+            return from == null ? "[nulos]" : "[" + from + ", " + to + (last ? "]" : ")");
+        }
+    }
+
+    private void detach( List<T> entities ) {
+        for (T entity : entities) {
+            em.detach(entity);
+        }
+    }
+
+    /**
+     * Busca os blocos de {@link #forEachChunk(int, Consumer)} e {@link #stream(int)} a partir de uma cópia da consulta
+     */
+    private class ChunkIterator implements Iterator<List<T>> {
+
+        private final JpaCriteriaHelper<T> chunkQuery = copy(em);
+
+        private final int chunkSize;
+
+        private final boolean keyset;
+
+        private List<T> next;
+
+        private boolean finished;
+
+        private ChunkIterator( int chunkSize ) {
+            if ( chunkSize < 1 ) {
+                throw new RuntimeException("O tamanho do bloco deve ser maior que zero.");
+            }
+            this.chunkSize = chunkSize;
+            this.keyset    = chunkQuery.addIdOrder();
+            if ( keyset ) {
+                chunkQuery.checkKeysetOrders();
+            }
+            chunkQuery.resultCache = null;
+            chunkQuery.pageSize   = chunkSize;
+            chunkQuery.pageNumber = 1;
+            chunkQuery.seekKeys   = null;
+            if ( chunkQuery.fetchSize == null ) {
+                chunkQuery.fetchSize = chunkSize;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( next == null && ! finished ) {
+                next = chunkQuery.getResults();
+                finished = next.size() < chunkSize;
+                if ( next.isEmpty() ) {
+                    next = null;
+                } else if ( keyset ) {
+                    List<Object> keys = new ArrayList<>();
+                    T last = next.get(next.size() - 1);
+                    for (OrderEntry orderEntry : chunkQuery.orders) {
+                        keys.add( getAttributeValue(last, orderEntry.fieldNames) );
+                    }
+                    chunkQuery.seekKeys   = keys;
+                    chunkQuery.pageNumber = null;
+                } else {
+                    chunkQuery.pageNumber++;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<T> next() {
+            if ( ! hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            List<T> chunk = next;
+            next = null;
+            return chunk;
+        }
+    }
+
+    /**
+     * Garante que o ORDER BY termine pelo id da entidade, para que a paginação por chave seja determinística.
+     * @return <b>false</b> se a entidade não possuir id simples (nesse caso a paginação por chave não é possível)
+     */
+    private boolean addIdOrder() {
+        String idName = getIdAttributeName();
+        if ( idName == null ) {
+            return false;
+        }
+        for (OrderEntry orderEntry : orders) {
+            if ( orderEntry.fieldNames.equals(Arrays.asList(idName)) ) {
+                return true;
+            }
+        }
+        orders.add( new OrderEntry(Arrays.asList(idName), OrderDirection.ASC) );
+        return true;
+    }
+
+    /**
+     * A paginação por chave lê os valores do ORDER BY da última entidade de cada bloco: as propriedades precisam ser
+     * obrigatórias (um valor nulo interromperia a leitura no meio) e da própria entidade (relacionamentos LAZY podem
+     * estar como proxy não inicializado). A verificação é feita antes do primeiro bloco.
+     */
+    private void checkKeysetOrders() {
+        for (OrderEntry orderEntry : orders) {
+            if ( orderEntry.path.isOptional() || orderEntry.path.hasAssociation() ) {
+                throw new RuntimeException("A leitura em blocos exige no ORDER BY apenas propriedades obrigatórias da própria "
+                        + "entidade (optional = false), sem relacionamentos: " + orderEntry.fieldNames);
+            }
+        }
+    }
+
+    /**
+     * @return nome do atributo id da entidade, ou <b>null</b> se a entidade possuir id composto
+     */
+    private String getIdAttributeName() {
+        EntityType<T> entityType = em.getMetamodel().entity(entityClass);
+        if ( ! entityType.hasSingleIdAttribute() || entityType.getIdType() == null ) {
+            return null;
+        }
+        return entityType.getId( entityType.getIdType().getJavaType() ).getName();
+    }
+
+    private <E, Y> void orderBy(CriteriaQuery<E> criteriaQuery, Root<Y> root) {
+        if (!orders.isEmpty()) {
+            ArrayList<Order> jpaOrders = new ArrayList<>();
+            for (OrderEntry orderField : orders) {
+                if (orderField.order.equals(OrderDirection.ASC)) {
+                    jpaOrders.add(criteriaBuilder.asc(getPath(orderField.path, root)));
+                } else {
+                    jpaOrders.add(criteriaBuilder.desc(getPath(orderField.path, root)));
+                }
+            }
+            criteriaQuery.orderBy(jpaOrders);
+        }
+    }
+
+    public void delete() {
+        if ( isContradiction() ) {
+            return;
+        }
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.DELETE);
+        CriteriaDelete<T> criteriaDelete = criteriaBuilder.createCriteriaDelete(entityClass);
+
+        Root<T> root = newRoot(criteriaDelete::from);
+
+        if (!wheres.isEmpty()) {
+            criteriaDelete.where( getPredicates(root, wheres) );
+        }
+
+        Query query = em.createQuery(criteriaDelete);
+        timer.built();
+        timer.execute( query::executeUpdate );
+
+        QueryResultCache.invalidateAll(entityClass, em);
+    }
+
+    /**
+     * Remove os registros da consulta em blocos, cada bloco em sua própria transação, para não manter locks longos
+     * nem sobrecarregar os logs do banco.
+     * <p>
+     * A cada bloco são selecionados (em ordem de id, a partir do último id do bloco anterior) até <code>chunkSize</code>
+     * ids que atendem ao WHERE, que são então removidos. Exige entidade com id simples e transações RESOURCE_LOCAL.
+     * Os blocos já confirmados não são desfeitos em caso de erro.
+     * @param emf Fábrica dos EntityManagers de cada bloco
+     * @param chunkSize Número máximo de registros removidos por bloco
+     * @param pauseMillis Pausa entre blocos, em milissegundos (0 para nenhuma)
+     * @param progress Recebe o total de registros removidos após cada bloco (pode ser <b>null</b>)
+     * @return total de registros removidos
+     */
+    public long deleteInChunks( EntityManagerFactory emf, int chunkSize, long pauseMillis, LongConsumer progress ) {
+        if ( chunkSize < 1 ) {
+            throw new RuntimeException("O tamanho do bloco deve ser maior que zero.");
+        }
+        String idName = getIdAttributeName();
+        if ( idName == null ) {
+            throw new RuntimeException("A remoção em blocos exige uma entidade com id simples: " + entityClass.getName());
+        }
+
+        long total = 0;
+        Object lastId = null;
+        while (true) {
+            EntityManager chunkEm = emf.createEntityManager();
+            List<Object> ids;
+            try {
+                chunkEm.getTransaction().begin();
+
+                JpaCriteriaHelper<T> chunkQuery = copy(chunkEm);
+                chunkQuery.orders.clear();
+                chunkQuery.orders.add( chunkQuery.new OrderEntry(Arrays.asList(idName), OrderDirection.ASC) );
+                chunkQuery.seekKeys = lastId == null ? null : Arrays.asList(lastId);
+                ids = chunkQuery.selectIds(idName, chunkSize);
+
+                if ( ! ids.isEmpty() ) {
+                    total += chunkQuery.deleteIds(idName, ids);
+                    lastId = ids.get(ids.size() - 1);
+                }
+
+                chunkEm.getTransaction().commit();
+            } catch (RuntimeException e) {
+                if ( chunkEm.getTransaction().isActive() ) {
+                    chunkEm.getTransaction().rollback();
+                }
+                throw e;
+            } finally {
+                chunkEm.close();
+            }
+
+            if ( ! ids.isEmpty() ) {
+                QueryResultCache.invalidateAll(entityClass);
+                if ( progress != null ) {
+                    progress.accept(total);
+                }
+            }
+            if ( ids.size() < chunkSize ) {
+                return total;
+            }
+            if ( pauseMillis > 0 ) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Remoção em blocos interrompida após " + total + " registros.", e);
+                }
+            }
+        }
+    }
+
+    private List<Object> selectIds( String idName, int maxResults ) {
+        CriteriaQuery<Object> criteriaQuery = criteriaBuilder.createQuery(Object.class);
+        Root<T> root = newRoot(criteriaQuery::from);
+        criteriaQuery.select( root.get(idName) );
+
+        setupWhere(criteriaQuery, root);
+        orderBy(criteriaQuery, root);
+
+        return em.createQuery(criteriaQuery).setMaxResults(maxResults).getResultList();
+    }
+
+    private int deleteIds( String idName, List<Object> ids ) {
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.DELETE);
+        CriteriaDelete<T> criteriaDelete = criteriaBuilder.createCriteriaDelete(entityClass);
+        Root<T> root = newRoot(criteriaDelete::from);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (!wheres.isEmpty()) {
+            predicates.addAll(Arrays.asList(getPredicates(root, wheres)));
+        }
+        predicates.add( getInPredicate(root.get(idName), ids) );
+        criteriaDelete.where( predicates.toArray(new Predicate[] {}) );
+
+        Query query = em.createQuery(criteriaDelete);
+        timer.built();
+        return timer.execute( query::executeUpdate );
+    }
+
+    private <C, R> void setupQuery(CriteriaQuery<C> criteriaQuery, Root<R> root) {
+        //FETCH JOINS
+        directFetch(root);
+
+        listFetch(root);
+
+        setupWhere(criteriaQuery, root);
+
+        orderBy(criteriaQuery, root);
+    }
+
+    private <C, R> void setupWhere(CriteriaQuery<C> criteriaQuery, Root<R> root) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (!wheres.isEmpty()) {
+            predicates.addAll(Arrays.asList(getPredicates(root, wheres)));
+        }
+        if (seekKeys != null) {
+            predicates.add(getSeekPredicate(root));
+        }
+        if (!predicates.isEmpty()) {
+            criteriaQuery.where(predicates.toArray(new Predicate[] {}));
+        }
+    }
+
+    /**
+     * Monta o predicado de paginação por chave: <code>(a, b) &gt; (x, y)</code>, expandido como
+     * <code>a &gt;= x AND (a &gt; x OR (a = x AND b &gt; y))</code>, respeitando a direção de cada ORDER BY.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    private <R> Predicate getSeekPredicate(Root<R> root) {
+        if ( orders.isEmpty() || seekKeys.size() != orders.size() ) {
+            throw new RuntimeException("A paginação por chave exige um valor para cada campo do ORDER BY ("
+                    + orders.size() + " campos, " + seekKeys.size() + " valores).");
+        }
+
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equals = new ArrayList<>();
+        Predicate leading = null;
+        for (int i = 0; i < orders.size(); i++) {
+            Object key = seekKeys.get(i);
+            if ( key == null ) {
+                throw new RuntimeException("A paginação por chave não aceita valores nulos: " + orders.get(i).fieldNames);
+            }
+            Path path = getPath(orders.get(i).path, root);
+            Expression value = getValueExpression(path.getJavaType(), key);
+            boolean asc = orders.get(i).order.equals(OrderDirection.ASC);
+
+            List<Predicate> alternative = new ArrayList<>(equals);
+            alternative.add( asc ? criteriaBuilder.greaterThan(path, value) : criteriaBuilder.lessThan(path, value) );
+            alternatives.add( criteriaBuilder.and(alternative.toArray(new Predicate[] {})) );
+            equals.add( criteriaBuilder.equal(path, value) );
+
+            if ( i == 0 ) {
+                leading = asc ? criteriaBuilder.greaterThanOrEqualTo(path, value) : criteriaBuilder.lessThanOrEqualTo(path, value);
+            }
+        }
+
+        Predicate seek = criteriaBuilder.or(alternatives.toArray(new Predicate[] {}));
+        return orders.size() == 1 ? seek : criteriaBuilder.and(leading, seek);
+    }
+
+    private <R> void listFetch(Root<R> root) {
+        for (JpaCriteriaHelper<T>.ListFetch<?> listFetch : listFetches) {
+            ListAttribute<? super R, ?> listAttribute = root.getModel().getList(listFetch.attribute, listFetch.clazz);
+            root.fetch(listAttribute);
+        }
+    }
+
+    private <R> void directFetch(Root<R> root) {
+        for (String fetch : directFetches) {
+            root.fetch(fetch);
+        }
+    }
+
+    /**
+     * Define o tamanho das páginas, em caso de paginação (tamanho padrão: 50)
+     * @param pageSize Número de registros por página
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setPageSize(Integer pageSize) {
+        demandsOperation(SqlOperation.SELECT);
+        this.pageSize = pageSize;
+        return this;
     }
 
     /**
@@ -635,319 +1967,2064 @@ public class JpaCriteriaHelper<T> {
      * @param pageNumber Número da página (informe <b>null</b> para desativar a página)
      * @return objeto de consulta
      */
-    public JpaCriteriaHelper<T> page( Integer pageNumber ) {
+    public JpaCriteriaHelper<T> page( Integer pageNumber ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.pageNumber = pageNumber;
+        return this;
+    }
+
+    /**
+     * Obtem apenas o primeiro registro do resultado da consulta
+     * @return O primeiro objeto retornado da consulta ou <b>null</b> se a consulta não retornar resultados
+     */
+    public T getFirstResult() {
+        demandsOperation(SqlOperation.SELECT);
+        List<T> resultList = this.setPageSize(1).page(1).getResults();
+        if ( resultList.isEmpty() ) {
+            return null;
+        } else {
+            return resultList.get(0);
+        }
+    }
+
+    /**
+     * Obtém apenas o primeiro registro do resultado da cpnsulta
+     * @return O primeiro objeto retornado da consulta ou <b>null</b> se a consulta não retornar resultados
+     */
+    public Optional<T> getFirstResultOpt() {
+        demandsOperation(SqlOperation.SELECT);
+        T firstResult = getFirstResult();
+
+        if (firstResult == null) {
+            return Optional.empty();
+        } else {
+            return Optional.of(firstResult);
+        }
+    }
+
+    /**
+     * Obtem unico registro do resultado da consulta
+     * @return O primeiro objeto retornado da consulta
+     */
+    public T getSingleResult() {
+        demandsOperation(SqlOperation.SELECT);
+        if ( isContradiction() ) {
+            throw new NoResultException("Nenhum registro atende às condições da consulta: " + getFingerprint());
+        }
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_SINGLE_RESULT);
+        CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClass);
+        Root<T> root = newRoot(criteriaQuery::from);
+        criteriaQuery.select(root);
+
+        setupQuery(criteriaQuery, root);
+
+        TypedQuery<T> typedQuery = em.createQuery(criteriaQuery);
+
+        setupHints(typedQuery);
+        setupGraph(typedQuery);
+        timer.built();
+
+        return timer.execute( typedQuery::getSingleResult );
+    }
+
+    /**
+     * Compila a forma da consulta (campos, operadores, ordenação, fetches e entity graph) em um {@link CompiledQuery}
+     * reutilizável, no qual os valores declarados com {@link #param(String)} são informados a cada execução.
+     * <p>
+     * Quando todos os valores (inclusive as chaves de {@link #seek(Object...)}) são parâmetros, a consulta compilada é
+     * mantida em cache por forma e por EntityManagerFactory, de modo que chamadas repetidas não reconstroem a árvore
+     * de predicados; o cache guarda as 1000 formas mais usadas de cada fábrica. Consultas com valores literais são
+     * compiladas a cada chamada.
+     * <p>
+     * Com fetch de coleções, as execuções paginadas usam a mesma paginação em duas etapas de {@link #getResults()}.
+     * O cache de resultados ({@link #cached(QueryResultCache)}) e a divisão do IN em blocos ({@link #setInChunkSize(Integer)})
+     * não se aplicam a consultas compiladas.
+     * @return consulta compilada
+     */
+    public CompiledQuery<T> compile() {
+        demandsOperation(SqlOperation.SELECT);
+        if ( resultCache != null ) {
+            throw new RuntimeException("Consultas compiladas não utilizam o cache de resultados: remova o cached(...) antes de compilar.");
+        }
+        if ( getSplittableIn() != null ) {
+            throw new RuntimeException("Consultas compiladas não dividem o IN em blocos: informe o IN como parâmetro ou remova o setInChunkSize(...).");
+        }
+        Map<String, Object> queryHints = getHints();
+        List<Object> shapeKey = getShapeKey();
+        // a paginação padrão faz parte da consulta compilada
+        shapeKey.add(pageSize);
+        shapeKey.add(pageNumber);
+        shapeKey.add(queryHints);
+        shapeKey.add(getFlushMode());
+        shapeKey.add(graphHint);
+        shapeKey.add(new ArrayList<>(graphPaths));
+        addFoldingKey(wheres, shapeKey);
+
+        Map<List<Object>, CompiledQuery<?>> cache = isParameterized() ? getCompiledQueries(em.getEntityManagerFactory()) : null;
+        @SuppressWarnings("unchecked")
+        CompiledQuery<T> compiledQuery = cache != null ? (CompiledQuery<T>) cache.get(shapeKey) : null;
+        if ( compiledQuery != null ) {
+            return compiledQuery;
+        }
+
+        CriteriaQuery<T> selectQuery = criteriaBuilder.createQuery(entityClass);
+        Root<T> root = newRoot(selectQuery::from);
+        selectQuery.select(root);
+        setupQuery(selectQuery, root);
+
+        CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+        Root<T> rootCount = newRoot(countQuery::from);
+        countQuery.select( criteriaBuilder.count( rootCount ) );
+        if ( ! wheres.isEmpty() ) {
+            countQuery.where( getPredicates(rootCount, wheres) );
+        }
+
+        // com fetch de coleções, as execuções paginadas usam a paginação em duas etapas (ver getResults())
+        String idName = getIdAttributeName();
+        CriteriaQuery<Tuple> idPageQuery = null;
+        CriteriaQuery<T> fetchByIdsQuery = null;
+        if ( idName != null && fetchesCollections() ) {
+            idPageQuery = createIdPageQuery(idName);
+            fetchByIdsQuery = createFetchByIdsQuery(idName, idPath -> getIdsParameterPredicate(idPath));
+        }
+
+        compiledQuery = new CompiledQuery<>(entityClass, getFingerprint(), selectQuery, countQuery, idPageQuery, fetchByIdsQuery
+                , isContradiction(), getParamNames(), pageSize, seekKeys != null ? Integer.valueOf(1) : pageNumber, queryHints
+                , getFlushMode(), graphHint, graphPaths, getParamNormalizers());
+        if ( cache != null ) {
+            cache.putIfAbsent(shapeKey, compiledQuery);
+        }
+        return compiledQuery;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate getIdsParameterPredicate( Path<?> idPath ) {
+        return idPath.in( (Expression) criteriaBuilder.parameter(Collection.class, CompiledQuery.IDS_PARAM) );
+    }
+
+    /**
+     * Cache de consultas compiladas da EntityManagerFactory informada.
+     * As consultas compiladas referenciam a própria fábrica, por isso as fábricas já fechadas são descartadas aqui.
+     */
+    private static Map<List<Object>, CompiledQuery<?>> getCompiledQueries( EntityManagerFactory emf ) {
+        synchronized (compiledQueries) {
+            Map<List<Object>, CompiledQuery<?>> cache = compiledQueries.get(emf);
+            if ( cache == null ) {
+                compiledQueries.keySet().removeIf(factory -> ! factory.isOpen());
+                cache = Collections.synchronizedMap(new LinkedHashMap<List<Object>, CompiledQuery<?>>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<List<Object>, CompiledQuery<?>> eldest) {
+                        return size() > MAX_COMPILED_QUERIES;
+                    }
+                });
+                compiledQueries.put(emf, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Indica se todos os valores da consulta (clausulas WHERE e chaves de seek) são parâmetros, isto é, se a consulta
+     * compilada não depende de valores literais
+     */
+    private boolean isParameterized() {
+        if ( seekKeys != null && seekKeys.stream().anyMatch(value -> ! (value instanceof Param)) ) {
+            return false;
+        }
+        return isParameterized(wheres);
+    }
+
+    private boolean isParameterized( List<WhereEntry> wheres ) {
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                if ( ! isParameterized(whereEntry.group) ) {
+                    return false;
+                }
+                continue;
+            }
+            for (Object value : Arrays.asList(whereEntry.valueIni, whereEntry.valueEnd)) {
+                if ( value != null && ! (value instanceof Param) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Congela a forma desta consulta (clausulas WHERE, ordenação, fetches e paginação) em uma {@link QuerySpec}
+     * imutável, que pode ser guardada em campo estático, compartilhada entre threads e executada com qualquer
+     * EntityManager, informando a cada execução os valores declarados com {@link #param(String)}.
+     * <p>
+     * Alterações posteriores neste objeto não afetam a especificação criada.
+     * @return especificação da consulta
+     */
+    public QuerySpec<T> toSpec() {
+        demandsOperation(SqlOperation.SELECT);
+        return new QuerySpec<>( copy(null) );
+    }
+
+    /**
+     * Cópia desta consulta associada ao EntityManager informado (usado por {@link QuerySpec})
+     */
+    JpaCriteriaHelper<T> bind( EntityManager em ) {
+        return copy( Objects.requireNonNull(em) );
+    }
+
+    /**
+     * Verifica se a consulta retorna algum resultado
+     * @return <li><b>true</b>: existem registros
+     *         <li><b>false</b>: não existem registros
+     */
+    public boolean exists() {
+        demandsOperation(SqlOperation.SELECT);
+        if ( isContradiction() ) {
+            return false;
+        }
+        WhereEntry inEntry = getSplittableIn();
+        if ( inEntry != null ) {
+            return runInChunks(inEntry, JpaCriteriaHelper::exists, Boolean.TRUE::equals).contains(Boolean.TRUE);
+        }
+
+        // seleciona apenas o id (sem fetches nem ordenação), limitado a uma linha, sem alterar a paginação
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.EXISTS);
+        CriteriaQuery<Object> criteriaQuery = criteriaBuilder.createQuery(Object.class);
+        Root<T> root = newRoot(criteriaQuery::from);
+        String idName = getIdAttributeName();
+        criteriaQuery.select( idName != null ? root.get(idName) : root );
+
+        setupWhere(criteriaQuery, root);
+
+        TypedQuery<Object> typedQuery = em.createQuery(criteriaQuery);
+
+        setupHints(typedQuery);
+        typedQuery.setMaxResults(1);
+        timer.built();
+
+        return timer.execute( () -> ! typedQuery.getResultList().isEmpty() );
+    }
+
+    /**
+     * Efetua a contagem dos registros da consulta
+     * @return numero de registros retornados pela consulta
+     */
+    public long count() {
+        demandsOperation(SqlOperation.SELECT);
+        if ( isContradiction() ) {
+            return 0;
+        }
+        if ( resultCache != null ) {
+            return getCached(getCacheKey("count"), QueryOperation.COUNT, () -> uncached().count());
+        }
+
+        WhereEntry inEntry = getSplittableIn();
+        if ( inEntry != null ) {
+            return runInChunks(inEntry, JpaCriteriaHelper::count).stream().mapToLong(Long::longValue).sum();
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.COUNT);
+        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
+        Root<T>                 rootCount = newRoot(criteriaQuery::from);
+
+        criteriaQuery.select( criteriaBuilder.count( rootCount ) );
+
+        if ( ! wheres.isEmpty() ) {
+            criteriaQuery.where( getPredicates(rootCount, wheres) );
+        }
+
+        TypedQuery<Long> typedQuery = em.createQuery( criteriaQuery );
+
+        setupHints(typedQuery);
+        timer.built();
+
+        return timer.execute( typedQuery::getSingleResult );
+    }
+    
+    /**
+     * Efetua a soma do campo informado dos registros da consulta 
+     * @return resultado da soma do campo informa dos registros retornados pela consulta
+     */
+    public <S extends Number> S sum( SingularAttribute<T, S> fieldToSum, Class<S> resultClass ) {
+        return sum(fieldToSum.getName(), resultClass);
+    }
+    
+    /**
+     * Efetua a soma do campo informado dos registros da consulta 
+     * @return resultado da soma do campo informa dos registros retornados pela consulta
+     */
+    public <S extends Number> S sum( String fieldToSum, Class<S> resultClass ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( isContradiction() ) {
+            return null;
+        }
+        if ( resultCache != null ) {
+            return getCached(getCacheKey("sum", fieldToSum, resultClass), QueryOperation.SUM
+                    , () -> uncached().sum(fieldToSum, resultClass));
+        }
+
+        WhereEntry inEntry = getSplittableIn();
+        if ( inEntry != null ) {
+            S total = null;
+            for (S partial : runInChunks(inEntry, chunk -> chunk.sum(fieldToSum, resultClass))) {
+                total = addNumbers(total, partial);
+            }
+            return total;
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.SUM);
+        CriteriaQuery<S> criteriaQuery = criteriaBuilder.createQuery(resultClass);
+        Root<T>              rootCount = newRoot(criteriaQuery::from);
+        
+        criteriaQuery.select( criteriaBuilder.sum( rootCount.get(fieldToSum) ) );
+        
+        if ( ! wheres.isEmpty() ) {
+            criteriaQuery.where( getPredicates(rootCount, wheres) );
+        }
+        
+        TypedQuery<S> typedQuery = em.createQuery( criteriaQuery );
+
+        setupHints(typedQuery);
+        timer.built();
+
+        return timer.execute( typedQuery::getSingleResult );
+    }
+
+    /**
+     * Calcula várias agregações (contagens, somas, mínimos, máximos, ...) dos registros da consulta em uma única
+     * ida ao banco, em vez de uma consulta para cada {@link #count()} ou {@link #sum(String, Class)}
+     * @param aggregates Agregações, com apelidos distintos
+     * @return valores das agregações, pelo apelido
+     */
+    public Summary summarize( Aggregate ... aggregates ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( aggregates.length == 0 ) {
+            throw new RuntimeException("Nenhuma agregação informada.");
+        }
+        Set<String> aliases = new HashSet<>();
+        for (Aggregate aggregate : aggregates) {
+            if ( ! aliases.add(aggregate.getAlias()) ) {
+                throw new RuntimeException("Apelido de agregação repetido: " + aggregate.getAlias() + ". Use Aggregate.as(...).");
+            }
+        }
+        if ( isContradiction() ) {
+            return combineSummaries(aggregates, new ArrayList<>());
+        }
+        if ( resultCache != null ) {
+            return getCached(getCacheKey("summarize", Arrays.asList(aggregates)), QueryOperation.SUMMARIZE
+                    , () -> uncached().summarize(aggregates));
+        }
+
+        WhereEntry inEntry = getSplittableIn();
+        if ( inEntry != null ) {
+            for (Aggregate aggregate : aggregates) {
+                if ( aggregate.getType() == Aggregate.Type.AVG || aggregate.getType() == Aggregate.Type.COUNT_DISTINCT ) {
+                    throw new RuntimeException("A agregação " + aggregate + " não pode ser combinada entre as partes do IN"
+                            + " (setInChunkSize).");
+                }
+            }
+            return combineSummaries(aggregates, runInChunks(inEntry, chunk -> chunk.summarize(aggregates)));
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.SUMMARIZE);
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T>                       root = newRoot(criteriaQuery::from);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Aggregate aggregate : aggregates) {
+            selections.add( getAggregateExpression(aggregate, root) );
+        }
+        criteriaQuery.multiselect(selections);
+
+        if ( ! wheres.isEmpty() ) {
+            criteriaQuery.where( getPredicates(root, wheres) );
+        }
+
+        TypedQuery<Tuple> typedQuery = em.createQuery( criteriaQuery );
+
+        setupHints(typedQuery);
+        timer.built();
+
+        return timer.execute( () -> {
+            Object[] row = typedQuery.getSingleResult().toArray();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < aggregates.length; i++) {
+                values.put(aggregates[i].getAlias(), row[i]);
+            }
+            return new Summary(values);
+        } );
+    }
+
+    /**
+     * Combina os resultados parciais de {@link #summarize(Aggregate...)} (sem resultados parciais, retorna as contagens
+     * zeradas e as demais agregações nulas)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    private static Summary combineSummaries( Aggregate[] aggregates, List<Summary> partials ) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Aggregate aggregate : aggregates) {
+            String alias = aggregate.getAlias();
+            Object value = aggregate.getType() == Aggregate.Type.COUNT || aggregate.getType() == Aggregate.Type.COUNT_DISTINCT
+                    ? Long.valueOf(0) : null;
+            for (Summary partial : partials) {
+                Object partialValue = partial.get(alias);
+                if ( value == null ) {
+                    value = partialValue;
+                } else if ( partialValue != null ) {
+                    switch ( aggregate.getType() ) {
+                        case MIN:
+                            value = ((Comparable) partialValue).compareTo(value) < 0 ? partialValue : value;
+                            break;
+                        case MAX:
+                            value = ((Comparable) partialValue).compareTo(value) > 0 ? partialValue : value;
+                            break;
+                        default:
+                            value = addNumbers((Number) value, (Number) partialValue);
+                            break;
+                    }
+                }
+            }
+            values.put(alias, value);
+        }
+        return new Summary(values);
+    }
+
+    /**
+     * Efetua operação de UPDATE
+     * @return
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" }) // TODO: tentar retirar estes warnings
+    public int execute() {
+        demandsOperation(SqlOperation.UPDATE);
+        if ( isContradiction() ) {
+            return 0;
+        }
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.EXECUTE);
+        CriteriaUpdate<T> criteriaUpdate = criteriaBuilder.createCriteriaUpdate(entityClass);
+        Root<T> rootUpdate               = newRoot(criteriaUpdate::from);
+
+        if ( ! wheres.isEmpty() ) {
+            criteriaUpdate.where( getPredicates(rootUpdate, wheres) );
+        }
+
+        if ( updates.isEmpty() ) {
+            throw new RuntimeException("Nenhum campo de update foi informado.");
+        }
+
+        for (Entry<List<String>, Object> updateEntry : updates.entrySet()) {
+            Path path = getPath(updateEntry.getKey(), rootUpdate);
+            criteriaUpdate.set(path, updateEntry.getValue());
+        }
+
+        Query query = em.createQuery( criteriaUpdate );
+        timer.built();
+        int affected = timer.execute( query::executeUpdate );
+
+        QueryResultCache.invalidateAll(entityClass, em);
+
+        return affected;
+    }
+
+    /**
+     * Forma do update para agrupamento em lote: campo da igualdade do WHERE e campos alterados.
+     * @return <b>null</b> se o update não pode ser agrupado (WHERE diferente de uma única igualdade com valor)
+     */
+    List<Object> getBatchShape() {
+        demandsOperation(SqlOperation.UPDATE);
+        if ( wheres.size() != 1 || updates.isEmpty() ) {
+            return null;
+        }
+        WhereEntry whereEntry = wheres.get(0);
+        if ( whereEntry.comparatorOperator != ComparatorOperator.EQUAL || whereEntry.valueIni == null
+                || whereEntry.valueIni instanceof Param || ! whereEntry.path.isSingleValued() ) {
+            return null;
+        }
+        for (Object value : updates.values()) {
+            if ( value instanceof Param ) {
+                return null;
+            }
+        }
+        return Arrays.asList(whereEntry.fieldNames, new HashSet<>(updates.keySet()));
+    }
+
+    Object getBatchKeyValue() {
+        return wheres.get(0).valueIni;
+    }
+
+    /**
+     * Executa um grupo de updates de mesma forma (ver {@link #getBatchShape()}) como um único UPDATE com CASE
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" }) // TODO: tentar retirar estes warnings
+    static <T> int executeBatch( List<JpaCriteriaHelper<T>> group ) {
+        JpaCriteriaHelper<T> first = group.get(0);
+        QueryListeners.Timer timer = QueryListeners.start(first, QueryOperation.EXECUTE);
+        CriteriaBuilder criteriaBuilder = first.criteriaBuilder;
+        CriteriaUpdate<T> criteriaUpdate = criteriaBuilder.createCriteriaUpdate(first.entityClass);
+        Root<T> rootUpdate               = criteriaUpdate.from(first.entityClass);
+
+        Path keyPath = first.getPath(first.wheres.get(0).path, rootUpdate);
+        List<Object> keys = new ArrayList<>();
+        for (JpaCriteriaHelper<T> update : group) {
+            keys.add( update.getBatchKeyValue() );
+        }
+
+        for (List<String> fieldNames : first.updates.keySet()) {
+            Path path = first.getPath(fieldNames, rootUpdate);
+            CriteriaBuilder.SimpleCase valueCase = criteriaBuilder.selectCase(keyPath);
+            for (JpaCriteriaHelper<T> update : group) {
+                Object newValue = update.updates.get(fieldNames);
+                valueCase = valueCase.when( update.getBatchKeyValue(),
+                        newValue == null ? criteriaBuilder.nullLiteral(path.getJavaType()) : criteriaBuilder.literal(newValue) );
+            }
+            Expression<Object> value = valueCase.otherwise(path);
+            criteriaUpdate.<Object>set((Path<Object>) path, value);
+        }
+
+        criteriaUpdate.where( first.getInPredicate(keyPath, keys) );
+
+        Query query = first.em.createQuery( criteriaUpdate );
+        timer.built();
+        int affected = timer.execute( query::executeUpdate );
+
+        QueryResultCache.invalidateAll(first.entityClass, first.em);
+
+        return affected;
+    }
+
+    private void addTowhere( List<String> fieldNames, ComparatorOperator comparator, Object valueIni, Object valueEnd, LogicalOperator logicalOperator ) {
+        if ( ( comparator.equals(ComparatorOperator.GREATER_THAN) || comparator.equals(ComparatorOperator.LESS_THAN) )
+                && ! (valueIni instanceof Comparable) ) {
+            throw new RuntimeException("Para os tipos de operador "
+                    + ComparatorOperator.GREATER_THAN + " e " + ComparatorOperator.LESS_THAN
+                    + " é necessário que o objeto de valor implemente " + Comparable.class.getName() + ".");
+        }
+
+        if ( comparator.equals(ComparatorOperator.IN) && ! (valueIni instanceof Collection) ) {
+            throw new RuntimeException("Para o tipo de operador " + ComparatorOperator.IN
+                    + " é necessário que o objeto de valor implemente " + Collection.class.getName() + ".");
+        }
+
+        if ( valueEnd != null && ! comparator.equals( ComparatorOperator.BETWEEN ) ) {
+            throw new RuntimeException("Quando informados dois valores, é obrigatório o uso de " + ComparatorOperator.BETWEEN);
+        }
+
+        if ( logicalOperator == null ) {
+            logicalOperator = LogicalOperator.AND;
+        }
+
+        wheres.add( new WhereEntry(fieldNames, comparator, valueIni, valueEnd, logicalOperator) );
+    }
+
+    private <E> Predicate[] getPredicates( Root<E> root, List<WhereEntry> wheres ) {
+        List<WhereEntry> optimized = wheres == this.wheres ? getOptimizedWheres() : optimize(wheres);
+        if ( optimized == null ) {
+            return new Predicate[] { criteriaBuilder.disjunction() };
+        }
+        return new Predicate[] { getPredicate(root, optimized) };
+    }
+
+    /**
+     * @return <b>true</b> se o WHERE nunca é satisfeito (ver {@link #optimize(List)}), caso em que as operações
+     *         retornam um resultado vazio sem consultar o banco
+     */
+    private boolean isContradiction() {
+        demandsEntityManager();
+        return ! wheres.isEmpty() && getOptimizedWheres() == null;
+    }
+
+    /**
+     * {@link #optimize(List)} das entradas WHERE atuais, recalculado apenas quando elas mudam (a verificação de
+     * contradição e a montagem dos predicados de uma execução otimizam uma única vez)
+     */
+    private List<WhereEntry> getOptimizedWheres() {
+        if ( ! wheres.equals(optimizedWheresSource) ) {
+            optimizedWheres       = optimize(wheres);
+            optimizedWheresSource = new ArrayList<>(wheres);
+        }
+        return optimizedWheres;
+    }
+
+    /**
+     * Reescreve as entradas WHERE em outras equivalentes, mais simples para o banco:
+     * <li>entradas repetidas são descartadas;
+     * <li>igualdades e INs ligados por OR sobre a mesma propriedade são unidos em um único IN;
+     * <li>IN vazio e igualdades incompatíveis ligadas por AND (<code>x = 1 AND x = 2</code>) são tratados como contradição.
+     * <p>
+     * O resultado está na forma normal usada por {@link #getPredicate(Root, List)}: todas as entradas com o mesmo
+     * operador lógico, com as demais combinações representadas por grupos.
+     * @return entradas otimizadas, ou <b>null</b> se o WHERE nunca é satisfeito
+     */
+    private List<WhereEntry> optimize( List<WhereEntry> wheres ) {
+        List<WhereEntry> operands = new ArrayList<>();
+        LogicalOperator operator = null;
+
+        for (WhereEntry whereEntry : wheres) {
+            WhereEntry operand = optimize(whereEntry);
+
+            if ( ! operands.isEmpty() ) {
+                LogicalOperator logicalOperator = whereEntry.logicalOperator != null ? whereEntry.logicalOperator : LogicalOperator.AND;
+                if ( operator != null && operator != logicalOperator ) {
+                    WhereEntry previous = toOperand( optimize(operator, operands) );
+                    operands.clear();
+                    operands.add(previous);
+                }
+                operator = logicalOperator;
+            }
+            operands.add(operand);
+        }
+
+        return optimize(operator, operands);
+    }
+
+    /**
+     * Otimiza uma entrada isolada
+     * @return entrada otimizada, ou <b>null</b> se nunca é satisfeita
+     */
+    private WhereEntry optimize( WhereEntry whereEntry ) {
+        if ( whereEntry.group != null ) {
+            return toOperand( optimize(whereEntry.group) );
+        }
+        if ( whereEntry.valueIni instanceof Param || whereEntry.valueEnd instanceof Param ) {
+            return whereEntry;
+        }
+        if ( whereEntry.comparatorOperator == ComparatorOperator.IN && ((Collection<?>) whereEntry.valueIni).isEmpty() ) {
+            return null;
+        }
+        return whereEntry;
+    }
+
+    /**
+     * Otimiza uma sequência de entradas ligadas pelo mesmo operador lógico (<b>null</b> representa uma entrada que
+     * nunca é satisfeita)
+     * @return entradas otimizadas, ou <b>null</b> se a sequência nunca é satisfeita
+     */
+    private List<WhereEntry> optimize( LogicalOperator operator, List<WhereEntry> operands ) {
+        List<WhereEntry> entries = new ArrayList<>();
+        for (WhereEntry operand : operands) {
+            if ( operand == null ) {
+                if ( operator == LogicalOperator.OR ) {
+                    continue;
+                }
+                return null;
+            }
+            // grupos com o mesmo operador são incorporados à sequência
+            if ( operand.group != null && operand.group.get(1).logicalOperator == operator ) {
+                entries.addAll(operand.group);
+            } else {
+                entries.add(operand);
+            }
+        }
+        if ( entries.isEmpty() ) {
+            return null;
+        }
+
+        // --- IGUALDADES E INs POR PROPRIEDADE ---
+        Map<List<String>, Set<Object>> valuesByPath = new LinkedHashMap<>();
+        Map<List<String>, Integer> countByPath = new HashMap<>();
+        for (WhereEntry entry : entries) {
+            Collection<?> values = getComparableValues(entry);
+            if ( values == null ) {
+                continue;
+            }
+            countByPath.merge(entry.fieldNames, 1, Integer::sum);
+            Set<Object> pathValues = valuesByPath.get(entry.fieldNames);
+            if ( pathValues == null ) {
+                valuesByPath.put(entry.fieldNames, new LinkedHashSet<>(values));
+            } else if ( operator == LogicalOperator.OR ) {
+                pathValues.addAll(values);
+            } else {
+                pathValues.retainAll(values);
+                if ( pathValues.isEmpty() ) {
+                    return null;
+                }
+            }
+        }
+
+        List<WhereEntry> optimized = new ArrayList<>();
+        Set<List<Object>> seen = new HashSet<>();
+        for (WhereEntry entry : entries) {
+            if ( operator == LogicalOperator.OR && getComparableValues(entry) != null && countByPath.get(entry.fieldNames) > 1 ) {
+                Set<Object> values = valuesByPath.remove(entry.fieldNames);
+                if ( values == null ) {
+                    continue;
+                }
+                entry = values.size() == 1
+                        ? new WhereEntry(entry.fieldNames, ComparatorOperator.EQUAL, values.iterator().next(), null, operator)
+                        : new WhereEntry(entry.fieldNames, ComparatorOperator.IN, new ArrayList<>(values), null, operator);
+            }
+            if ( seen.add( entry.group != null ? getWhereKey(entry.group)
+                    : Arrays.asList(entry.fieldNames, entry.comparatorOperator, entry.valueIni, entry.valueEnd) ) ) {
+                optimized.add( withOperator(entry, operator) );
+            }
+        }
+        return optimized;
+    }
+
+    /**
+     * Valores de uma igualdade ou IN, quando podem ser comparados com segurança em memória: sem parâmetros, sem nulos,
+     * sobre propriedade de valor único e do mesmo tipo Java da propriedade, que deve ser numérico, enum, booleano ou
+     * data/hora. Textos ficam de fora, pois a igualdade no banco depende da collation (maiúsculas, acentos, espaços).
+     * @return valores, ou <b>null</b> se a entrada não se enquadra
+     */
+    private Collection<?> getComparableValues( WhereEntry entry ) {
+        Collection<?> values;
+        if ( entry.group != null || ! entry.path.isSingleValued()
+                || entry.valueIni instanceof Param || entry.valueEnd instanceof Param ) {
+            return null;
+        } else if ( entry.comparatorOperator == ComparatorOperator.EQUAL ) {
+            values = Collections.singletonList(entry.valueIni);
+        } else if ( entry.comparatorOperator == ComparatorOperator.IN ) {
+            values = (Collection<?>) entry.valueIni;
+        } else {
+            return null;
+        }
+        Class<?> javaType = wrap(entry.path.getJavaType());
+        if ( ! isComparableInMemory(javaType) ) {
+            return null;
+        }
+        for (Object value : values) {
+            if ( value == null || value.getClass() != javaType ) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static boolean isComparableInMemory( Class<?> javaType ) {
+        if ( Number.class.isAssignableFrom(javaType) ) {
+            // BigDecimal: 1.0 e 1.00 são iguais no banco, mas não em equals()
+            return javaType != BigDecimal.class;
+        }
+        return javaType.isEnum() || javaType == Boolean.class
+                || Temporal.class.isAssignableFrom(javaType) || java.util.Date.class.isAssignableFrom(javaType);
+    }
+
+    private WhereEntry toOperand( List<WhereEntry> entries ) {
+        if ( entries == null ) {
+            return null;
+        }
+        return entries.size() == 1 ? entries.get(0) : new WhereEntry(entries, LogicalOperator.AND);
+    }
+
+    private WhereEntry withOperator( WhereEntry entry, LogicalOperator operator ) {
+        if ( operator == null || entry.logicalOperator == operator ) {
+            return entry;
+        }
+        return entry.group != null
+                ? new WhereEntry(entry.group, operator)
+                : new WhereEntry(entry.fieldNames, entry.comparatorOperator, entry.valueIni, entry.valueEnd, operator);
+    }
+
+    /**
+     * Monta o predicado das entradas WHERE. A avaliação da esquerda para a direita é mantida
+     * (<code>a AND b OR c AND d</code> equivale a <code>((a AND b) OR c) AND d</code>), mas cada sequência de entradas
+     * com o mesmo operador lógico gera um único AND/OR n-ário, em vez de chamadas binárias aninhadas:
+     * <code>AND(OR(AND(a, b), c), d)</code>. Grupos ({@link #andGroup(Consumer)}) são montados recursivamente.
+     */
+    private <E> Predicate getPredicate( Root<E> root, List<WhereEntry> wheres ) {
+        List<Predicate> operands = new ArrayList<>();
+        LogicalOperator operator = null;
+
+        for (WhereEntry whereEntry : wheres) {
+            Predicate predicate = whereEntry.group != null ? getPredicate(root, whereEntry.group) : getComparisonPredicate(root, whereEntry);
+
+            if ( ! operands.isEmpty() ) {
+                // --- OPERADOR LÓGICO ---
+                LogicalOperator logicalOperator = whereEntry.logicalOperator != null ? whereEntry.logicalOperator : LogicalOperator.AND;
+                if ( operator != null && operator != logicalOperator ) {
+                    Predicate previous = combine(operator, operands);
+                    operands.clear();
+                    operands.add(previous);
+                }
+                operator = logicalOperator;
+            }
+            operands.add(predicate);
+        }
+
+        return combine(operator, operands);
+    }
+
+    private Predicate combine( LogicalOperator operator, List<Predicate> operands ) {
+        if ( operands.size() == 1 ) {
+            return operands.get(0);
+        }
+        Predicate[] predicates = operands.toArray(new Predicate[] {});
+        switch ( operator ) {
+            case AND:
+                return criteriaBuilder.and(predicates);
+            case OR:
+                return criteriaBuilder.or(predicates);
+            default:
+                throw new RuntimeException("Tipo de operador lógico não conhecido: " + operator);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    private <E> Predicate getComparisonPredicate( Root<E> root, WhereEntry whereEntry ) {
+        Predicate predicate;
+
+        // --- OPERADOR DE COMPARAÇÃO ---
+        Path path = getPath(whereEntry.path, root);
+        if ( whereEntry.valueIni instanceof Param || whereEntry.valueEnd instanceof Param ) {
+            predicate = getParameterPredicate(root, path, whereEntry);
+        } else switch (whereEntry.comparatorOperator) {
+            case EQUAL:
+                if ( whereEntry.valueIni == null ) {
+                    predicate = criteriaBuilder.isNull(path);
+                } else {
+                    predicate = criteriaBuilder.equal(path, whereEntry.valueIni);
+                }
+                break;
+            case NOT_EQUAL:
+                if ( whereEntry.valueIni == null ) {
+                    predicate = criteriaBuilder.isNotNull(path);
+                } else {
+                    predicate = criteriaBuilder.notEqual(path, whereEntry.valueIni);
+                }
+                break;
+            case GREATER_THAN:
+                predicate = criteriaBuilder.greaterThan(path, (Comparable) whereEntry.valueIni);
+                break;
+            case LESS_THAN:
+                predicate = criteriaBuilder.lessThan(path, (Comparable) whereEntry.valueIni);
+                break;
+            case LIKE:
+                predicate = criteriaBuilder.like(path, whereEntry.valueIni.toString());
+                break;
+            case LIKE_IGNORE_CASE:
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+            case STARTS_WITH_IGNORE_CASE:
+            case ENDS_WITH_IGNORE_CASE:
+            case CONTAINS_IGNORE_CASE:
+                predicate = getTextPredicate(root, path, whereEntry);
+                break;
+            case IN:
+                predicate = getInPredicate(path, (Collection) whereEntry.valueIni);
+                break;
+            case BETWEEN:
+                predicate = criteriaBuilder.between(path, (Comparable) whereEntry.valueIni, (Comparable) whereEntry.valueEnd);
+                break;
+            default:
+                throw new RuntimeException("Tipo de operador de comparação não conhecido: " + whereEntry.comparatorOperator);
+        }
+        return predicate;
+    }
+
+    /**
+     * Monta o LIKE dos operadores de texto. Em STARTS_WITH, ENDS_WITH e CONTAINS os curingas do valor (<code>%</code>,
+     * <code>_</code>) são escapados, de modo que apenas o texto informado é procurado; STARTS_WITH gera
+     * <code>coluna LIKE 'valor%'</code>, que permite o uso de índice. Nos operadores sem distinção de maiúsculas a coluna
+     * é comparada segundo a forma registrada para a propriedade (ver {@link #setCaseFolding(Class, String, CaseFolding)}).
+     */
+    @SuppressWarnings("unchecked")
+    private <E> Predicate getTextPredicate( Root<E> root, Path<?> path, WhereEntry whereEntry ) {
+        ComparatorOperator comparator = whereEntry.comparatorOperator;
+        Expression<String> column = (Expression<String>) path;
+        String value = whereEntry.valueIni.toString();
+
+        if ( isIgnoreCase(comparator) ) {
+            TextFolding folding = getTextFolding(whereEntry);
+            if ( folding != null && folding.shadowFieldName != null ) {
+                column = (Expression<String>) getPath(getShadowFieldNames(whereEntry, folding), root);
+                value  = folding.normalizer.apply(value);
+            } else {
+                switch ( folding != null ? folding.caseFolding : defaultCaseFolding ) {
+                    case LOWER:
+                        column = criteriaBuilder.lower(column);
+                        value  = value.toLowerCase();
+                        break;
+                    case UPPER:
+                        column = criteriaBuilder.upper(column);
+                        value  = value.toUpperCase();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        switch ( comparator ) {
+            case LIKE_IGNORE_CASE:
+                return criteriaBuilder.like(column, value);
+            case STARTS_WITH:
+            case STARTS_WITH_IGNORE_CASE:
+                return criteriaBuilder.like(column, escapeLike(value) + "%", LIKE_ESCAPE);
+            case ENDS_WITH:
+            case ENDS_WITH_IGNORE_CASE:
+                return criteriaBuilder.like(column, "%" + escapeLike(value), LIKE_ESCAPE);
+            default:
+                return criteriaBuilder.like(column, "%" + escapeLike(value) + "%", LIKE_ESCAPE);
+        }
+    }
+
+    private static String escapeLike( String value ) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (char c : value.toCharArray()) {
+            if ( c == LIKE_ESCAPE || c == '%' || c == '_' ) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Monta o predicado IN. Valores repetidos são descartados e a lista é completada (repetindo o último valor) até o
+     * próximo tamanho de uma série fixa (potências de 2 até o tamanho máximo), limitando o número de SQLs distintos.
+     * Listas maiores que o tamanho máximo são divididas em <code>(x IN (...) OR x IN (...))</code>.
+     */
+    private Predicate getInPredicate( Path<?> path, Collection<?> values ) {
+        if ( inChunkSize == null || values.isEmpty() ) {
+            return path.in(values);
+        }
+
+        List<List<Object>> chunks = partition(new ArrayList<>(new LinkedHashSet<>(values)), inChunkSize);
+        Predicate[] predicates = new Predicate[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            predicates[i] = path.in( padToBucket(chunks.get(i)) );
+        }
+        return predicates.length == 1 ? predicates[0] : criteriaBuilder.or(predicates);
+    }
+
+    private List<Object> padToBucket( List<Object> values ) {
+        int bucket = 1;
+        while ( bucket < values.size() ) {
+            bucket *= 2;
+        }
+        bucket = Math.min(bucket, Math.max(inChunkSize, values.size()));
+
+        List<Object> padded = new ArrayList<>(bucket);
+        padded.addAll(values);
+        while ( padded.size() < bucket ) {
+            padded.add( values.get(values.size() - 1) );
+        }
+        return padded;
+    }
+
+    private static List<List<Object>> partition( List<Object> values, int size ) {
+        List<List<Object>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += size) {
+            chunks.add( values.subList(i, Math.min(i + size, values.size())) );
+        }
+        return chunks;
+    }
+
+    /**
+     * Define o tamanho máximo das listas do operador {@link ComparatorOperator#IN} (desativado por padrão: as listas são
+     * repassadas como informadas). Ex.: 1000.
+     * <p>
+     * Listas maiores, quando combinadas apenas com AND, sem paginação e sem ORDER BY, são divididas em uma consulta por
+     * bloco, cujos resultados são unidos ({@link #count()} e {@link #sum(String, Class)} somam os parciais).
+     * Nos demais casos, são divididas em blocos ligados por OR em uma única consulta, mantendo a ordenação do banco.
+     * @param inChunkSize Tamanho máximo (informe <b>null</b> para desativar a divisão e o arredondamento das listas)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> setInChunkSize( Integer inChunkSize ) {
+        this.inChunkSize = inChunkSize;
+        return this;
+    }
+
+    /**
+     * Executa em paralelo as consultas de cada bloco de uma lista IN dividida (ver {@link #setInChunkSize(Integer)}),
+     * cada uma em um EntityManager próprio. As entidades retornadas ficam desanexadas.
+     * @param emf Fábrica dos EntityManagers de cada bloco
+     * @param executor Executor das consultas
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> parallelInChunks( EntityManagerFactory emf, Executor executor ) {
+        this.inChunkEntityManagerFactory = Objects.requireNonNull(emf);
+        this.inChunkExecutor             = Objects.requireNonNull(executor);
+        return this;
+    }
+
+    /**
+     * @return a entrada IN que deve ser executada em várias consultas, ou <b>null</b> se a consulta não pode ou não
+     * precisa ser dividida
+     */
+    private WhereEntry getSplittableIn() {
+        if ( inChunkSize == null || pageNumber != null || seekKeys != null ) {
+            return null;
+        }
+
+        WhereEntry splittable = null;
+        for (int i = 0; i < wheres.size(); i++) {
+            WhereEntry whereEntry = wheres.get(i);
+            if ( i > 0 && whereEntry.logicalOperator == LogicalOperator.OR ) {
+                return null;
+            }
+            if ( whereEntry.comparatorOperator == ComparatorOperator.IN
+                    && whereEntry.valueIni instanceof Collection
+                    && ((Collection<?>) whereEntry.valueIni).size() > inChunkSize ) {
+                if ( splittable != null || ! whereEntry.path.isSingleValued() ) {
+                    return null;
+                }
+                splittable = whereEntry;
+            }
+        }
+        return splittable;
+    }
+
+    /**
+     * Executa a operação uma vez para cada bloco de valores da entrada IN, sequencialmente ou em paralelo
+     */
+    private <R> List<R> runInChunks( WhereEntry inEntry, Function<JpaCriteriaHelper<T>, R> operation ) {
+        return runInChunks(inEntry, operation, result -> false);
+    }
+
+    /**
+     * Executa a operação para cada bloco de valores da entrada IN, parando no primeiro resultado que atende à condição
+     * de parada: os blocos seguintes não são consultados (em paralelo, os ainda não iniciados são cancelados)
+     * @return resultados dos blocos, na ordem dos blocos, até o que atendeu à condição de parada
+     */
+    private <R> List<R> runInChunks( WhereEntry inEntry, Function<JpaCriteriaHelper<T>, R> operation
+            , java.util.function.Predicate<? super R> stop ) {
+        List<List<Object>> chunks = partition(new ArrayList<>(new LinkedHashSet<>((Collection<?>) inEntry.valueIni)), inChunkSize);
+
+        List<R> results = new ArrayList<>();
+        if ( inChunkExecutor == null ) {
+            for (List<Object> chunk : chunks) {
+                R result = operation.apply(copyWithIn(em, inEntry, chunk));
+                results.add(result);
+                if ( stop.test(result) ) {
+                    break;
+                }
+            }
+            return results;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        for (List<Object> chunk : chunks) {
+            futures.add( CompletableFuture.supplyAsync(() -> {
+                EntityManager chunkEm = inChunkEntityManagerFactory.createEntityManager();
+                try {
+                    return operation.apply(copyWithIn(chunkEm, inEntry, chunk));
+                } finally {
+                    chunkEm.close();
+                }
+            }, inChunkExecutor) );
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            R result = join(futures.get(i));
+            results.add(result);
+            if ( stop.test(result) ) {
+                futures.subList(i + 1, futures.size()).forEach(future -> future.cancel(false));
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Aguarda o resultado de uma execução assíncrona, relançando a exceção original em caso de erro
+     */
+    private static <R> R join( CompletableFuture<R> future ) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private JpaCriteriaHelper<T> copyWithIn( EntityManager em, WhereEntry inEntry, List<Object> chunk ) {
+        JpaCriteriaHelper<T> copy = copy(em);
+        copy.wheres.set( wheres.indexOf(inEntry),
+                copy.new WhereEntry(inEntry.fieldNames, ComparatorOperator.IN, chunk, null, inEntry.logicalOperator) );
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends Number> S addNumbers( S a, S b ) {
+        if ( a == null ) {
+            return b;
+        }
+        if ( b == null ) {
+            return a;
+        }
+        Number sum;
+        if ( a instanceof BigDecimal ) {
+            sum = ((BigDecimal) a).add( (BigDecimal) b );
+        } else if ( a instanceof BigInteger ) {
+            sum = ((BigInteger) a).add( (BigInteger) b );
+        } else if ( a instanceof Long ) {
+            sum = a.longValue() + b.longValue();
+        } else if ( a instanceof Integer ) {
+            sum = a.intValue() + b.intValue();
+        } else if ( a instanceof Short ) {
+            sum = (short) (a.shortValue() + b.shortValue());
+        } else if ( a instanceof Double ) {
+            sum = a.doubleValue() + b.doubleValue();
+        } else if ( a instanceof Float ) {
+            sum = a.floatValue() + b.floatValue();
+        } else {
+            throw new RuntimeException("Tipo numérico não suportado na soma: " + a.getClass().getName());
+        }
+        return (S) sum;
+    }
+
+    /**
+     * Monta o predicado de uma entrada WHERE cujo valor é um {@link Param}, usando {@link ParameterExpression}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    private <E> Predicate getParameterPredicate( Root<E> root, Path path, WhereEntry whereEntry ) {
+        switch (whereEntry.comparatorOperator) {
+            case EQUAL:
+                return criteriaBuilder.equal(path, getValueExpression(path.getJavaType(), whereEntry.valueIni));
+            case NOT_EQUAL:
+                return criteriaBuilder.notEqual(path, getValueExpression(path.getJavaType(), whereEntry.valueIni));
+            case GREATER_THAN:
+                return criteriaBuilder.greaterThan(path, (Expression) getValueExpression(path.getJavaType(), whereEntry.valueIni));
+            case LESS_THAN:
+                return criteriaBuilder.lessThan(path, (Expression) getValueExpression(path.getJavaType(), whereEntry.valueIni));
+            case LIKE:
+                return criteriaBuilder.like(path, (Expression) getValueExpression(String.class, whereEntry.valueIni));
+            case LIKE_IGNORE_CASE:
+                return getParameterLikePredicate(root, path, whereEntry);
+            case IN:
+                return path.in( getValueExpression(Collection.class, whereEntry.valueIni) );
+            case STARTS_WITH:
+            case ENDS_WITH:
+            case CONTAINS:
+            case STARTS_WITH_IGNORE_CASE:
+            case ENDS_WITH_IGNORE_CASE:
+            case CONTAINS_IGNORE_CASE:
+                throw new RuntimeException("O operador " + whereEntry.comparatorOperator + " não aceita parâmetros: informe o valor na montagem da consulta.");
+            case BETWEEN:
+                return criteriaBuilder.between(path,
+                        (Expression) getValueExpression(path.getJavaType(), whereEntry.valueIni),
+                        (Expression) getValueExpression(path.getJavaType(), whereEntry.valueEnd));
+            default:
+                throw new RuntimeException("Tipo de operador de comparação não conhecido: " + whereEntry.comparatorOperator);
+        }
+    }
+
+    /**
+     * LIKE_IGNORE_CASE com parâmetro, segundo a forma registrada para a propriedade (ver
+     * {@link #setCaseFolding(Class, String, CaseFolding)}). Com propriedade sombra, o normalizador é aplicado ao valor
+     * do parâmetro na execução (ver {@link #getParamNormalizers()}).
+     */
+    @SuppressWarnings("unchecked")
+    private <E> Predicate getParameterLikePredicate( Root<E> root, Path<?> path, WhereEntry whereEntry ) {
+        Expression<String> column = (Expression<String>) path;
+        Expression<String> value  = (Expression<String>) getValueExpression(String.class, whereEntry.valueIni);
+
+        TextFolding folding = getTextFolding(whereEntry);
+        if ( folding != null && folding.shadowFieldName != null ) {
+            return criteriaBuilder.like( (Expression<String>) getPath(getShadowFieldNames(whereEntry, folding), root), value );
+        }
+        switch ( folding != null ? folding.caseFolding : defaultCaseFolding ) {
+            case LOWER:
+                return criteriaBuilder.like( criteriaBuilder.lower(column), criteriaBuilder.lower(value) );
+            case UPPER:
+                return criteriaBuilder.like( criteriaBuilder.upper(column), criteriaBuilder.upper(value) );
+            default:
+                return criteriaBuilder.like(column, value);
+        }
+    }
+
+    private TextFolding getTextFolding( WhereEntry whereEntry ) {
+        return textFoldings.get( Arrays.asList(entityClass, String.join(".", whereEntry.fieldNames)) );
+    }
+
+    private List<String> getShadowFieldNames( WhereEntry whereEntry, TextFolding folding ) {
+        List<String> shadowFieldNames = new ArrayList<>(whereEntry.fieldNames);
+        shadowFieldNames.set(shadowFieldNames.size() - 1, folding.shadowFieldName);
+        return shadowFieldNames;
+    }
+
+    private static boolean isIgnoreCase( ComparatorOperator comparator ) {
+        return comparator == ComparatorOperator.LIKE_IGNORE_CASE || comparator == ComparatorOperator.STARTS_WITH_IGNORE_CASE
+                || comparator == ComparatorOperator.ENDS_WITH_IGNORE_CASE || comparator == ComparatorOperator.CONTAINS_IGNORE_CASE;
+    }
+
+    /**
+     * Forma de comparação vigente para cada entrada sem distinção de maiúsculas, que determina o SQL gerado
+     * (usada na chave das consultas compiladas)
+     */
+    private void addFoldingKey( List<WhereEntry> wheres, List<Object> key ) {
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                addFoldingKey(whereEntry.group, key);
+            } else if ( isIgnoreCase(whereEntry.comparatorOperator) ) {
+                TextFolding folding = getTextFolding(whereEntry);
+                key.add( folding != null ? folding : defaultCaseFolding );
+            }
+        }
+    }
+
+    /**
+     * Normalizadores das propriedades sombra a aplicar aos valores dos parâmetros de LIKE_IGNORE_CASE, por nome do
+     * parâmetro
+     */
+    private Map<String, Function<String, String>> getParamNormalizers() {
+        Map<String, Function<String, String>> normalizers = new HashMap<>();
+        addParamNormalizers(wheres, normalizers);
+        return normalizers;
+    }
+
+    private void addParamNormalizers( List<WhereEntry> wheres, Map<String, Function<String, String>> normalizers ) {
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                addParamNormalizers(whereEntry.group, normalizers);
+                continue;
+            }
+            if ( whereEntry.comparatorOperator != ComparatorOperator.LIKE_IGNORE_CASE || ! (whereEntry.valueIni instanceof Param) ) {
+                continue;
+            }
+            TextFolding folding = getTextFolding(whereEntry);
+            if ( folding != null && folding.shadowFieldName != null ) {
+                String name = ((Param) whereEntry.valueIni).name;
+                Function<String, String> previous = normalizers.put(name, folding.normalizer);
+                if ( previous != null && previous != folding.normalizer ) {
+                    throw new RuntimeException("O parâmetro " + name + " é usado em propriedades com normalizações diferentes.");
+                }
+            }
+        }
+    }
+
+    private Expression<?> getValueExpression( Class<?> javaType, Object value ) {
+        if ( value instanceof Param ) {
+            return criteriaBuilder.parameter(wrap(javaType), ((Param) value).name);
+        }
+        return criteriaBuilder.literal(value);
+    }
+
+    private static Class<?> wrap( Class<?> javaType ) {
+        if ( ! javaType.isPrimitive() ) {
+            return javaType;
+        }
+        if ( javaType == int.class )     return Integer.class;
+        if ( javaType == long.class )    return Long.class;
+        if ( javaType == boolean.class ) return Boolean.class;
+        if ( javaType == double.class )  return Double.class;
+        if ( javaType == float.class )   return Float.class;
+        if ( javaType == short.class )   return Short.class;
+        if ( javaType == byte.class )    return Byte.class;
+        return Character.class;
+    }
+
+    private List<String> getParamNames() {
+        List<String> names = new ArrayList<>();
+        addParamNames(wheres, names);
+        if ( seekKeys != null ) {
+            for (Object value : seekKeys) {
+                if ( value instanceof Param && ! names.contains(((Param) value).name) ) {
+                    names.add(((Param) value).name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private void addParamNames( List<WhereEntry> wheres, List<String> names ) {
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                addParamNames(whereEntry.group, names);
+                continue;
+            }
+            for (Object value : Arrays.asList(whereEntry.valueIni, whereEntry.valueEnd)) {
+                if ( value instanceof Param && ! names.contains(((Param) value).name) ) {
+                    names.add(((Param) value).name);
+                }
+            }
+        }
+    }
+
+    Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Identificação legível e estável da forma da consulta (sem os valores), usada nas medições dos {@link QueryListener}
+     */
+    String getFingerprint() {
+        StringBuilder fingerprint = new StringBuilder(entityClass.getSimpleName());
+        fingerprint.append(" where[");
+        appendFingerprint(fingerprint, wheres);
+        fingerprint.append(']');
+        if ( ! orders.isEmpty() ) {
+            fingerprint.append(" order[");
+            for (int i = 0; i < orders.size(); i++) {
+                fingerprint.append(i > 0 ? ", " : "").append(String.join(".", orders.get(i).fieldNames)).append(' ').append(orders.get(i).order);
+            }
+            fingerprint.append(']');
+        }
+        if ( ! directFetches.isEmpty() || ! listFetches.isEmpty() ) {
+            fingerprint.append(" fetch").append(directFetches);
+            for (ListFetch<?> listFetch : listFetches) {
+                fingerprint.append('[').append(listFetch.attribute).append(']');
+            }
+        }
+        if ( seekKeys != null ) {
+            fingerprint.append(" seek");
+        } else if ( pageNumber != null ) {
+            fingerprint.append(" page");
+        }
+        return fingerprint.toString();
+    }
+
+    private void appendFingerprint( StringBuilder fingerprint, List<WhereEntry> wheres ) {
+        for (int i = 0; i < wheres.size(); i++) {
+            WhereEntry whereEntry = wheres.get(i);
+            if ( i > 0 ) {
+                fingerprint.append(' ').append(whereEntry.logicalOperator).append(' ');
+            }
+            if ( whereEntry.group != null ) {
+                fingerprint.append('(');
+                appendFingerprint(fingerprint, whereEntry.group);
+                fingerprint.append(')');
+            } else {
+                fingerprint.append(String.join(".", whereEntry.fieldNames)).append(' ').append(whereEntry.comparatorOperator);
+            }
+        }
+    }
+
+    /**
+     * Chave que identifica a forma da consulta: entidade, clausulas WHERE (com seus valores), ORDER BY e fetches
+     */
+    private List<Object> getShapeKey() {
+        List<Object> key = new ArrayList<>();
+        key.add(entityClass);
+        key.add(getWhereKey(wheres));
+        for (OrderEntry orderEntry : orders) {
+            key.add(Arrays.asList(orderEntry.fieldNames, orderEntry.order));
+        }
+        key.add(seekKeys);
+        key.add(new ArrayList<>(directFetches));
+        for (ListFetch<?> listFetch : listFetches) {
+            key.add(Arrays.asList(listFetch.attribute, listFetch.clazz));
+        }
+        return key;
+    }
+
+    private List<Object> getWhereKey( List<WhereEntry> wheres ) {
+        List<Object> key = new ArrayList<>();
+        for (WhereEntry whereEntry : wheres) {
+            if ( whereEntry.group != null ) {
+                key.add(Arrays.asList(whereEntry.logicalOperator, getWhereKey(whereEntry.group)));
+            } else {
+                key.add(Arrays.asList(whereEntry.fieldNames, whereEntry.comparatorOperator, whereEntry.logicalOperator
+                        , whereEntry.valueIni, whereEntry.valueEnd));
+            }
+        }
+        return key;
+    }
+
+    private <E> Path<?> getPath(List<String> fieldNames, Root<E> root) {
+        return getPath(resolvePath(fieldNames), root);
+    }
+
+    /**
+     * Monta o Path a partir do caminho já resolvido no Metamodel, criando (uma única vez por origem) os JOINs de coleções
+     */
+    private <E> Path<?> getPath(ResolvedPath resolvedPath, Root<E> root) {
+        Path<?> entity = root;
+
+        for (Step step : resolvedPath.getSteps()) {
+            if ( step.isJoin() ) {
+                List<Object> joinKey = Arrays.asList(entity, step.getName());
+                From<?, ?> join = joinsMap.get(joinKey);
+                if ( join == null ) {
+                    join = ((From<?, ?>) entity).join(step.getName());
+                    joinsMap.put(joinKey, join);
+                }
+                entity = join;
+            } else {
+                entity = entity.get(step.getName());
+            }
+        }
+
+        return entity;
+    }
+
+    /**
+     * Resolve (via cache do Metamodel) o caminho de propriedades da entidade, validando sua existência
+     */
+    private ResolvedPath resolvePath(List<String> fieldNames) {
+        if ( em == null ) {
+            // objeto criado por spec(...): o caminho é resolvido em copy(em), a cada EntityManager
+            return null;
+        }
+        return AttributePaths.resolve(em.getMetamodel(), entityClass, fieldNames);
+    }
+
+    /**
+     * Cria a raiz de uma nova consulta, descartando os JOINs montados para as consultas anteriores
+     */
+    private Root<T> newRoot( Function<Class<T>, Root<T>> from ) {
+        demandsEntityManager();
+        joinsMap.clear();
+        return from.apply(entityClass);
+    }
+
+    private void demandsEntityManager() {
+        if ( em == null ) {
+            throw new RuntimeException("Objeto criado por spec(...) não executa consultas: use toSpec().with(em).");
+        }
+    }
+
+    // TODO: demandsOperation(SqlOperation.SELECT); ?
+    public JpaCriteriaHelper<T> fetch(String property) {
+        this.directFetches.add(property);
+
+        return this;
+    }
+
+    // TODO: demandsOperation(SqlOperation.SELECT); ?
+    public <E> JpaCriteriaHelper<T> fetch(String fetch, Class<E> clazz) {
+        this.listFetches.add(new ListFetch<>(fetch, clazz));
+
+        return this;
+    }
+
+    /**
+     * Define um fetch graph (JPA entity graph) para as entidades retornadas por {@link #getResults()} e
+     * {@link #getSingleResult()}: as propriedades informadas são carregadas junto com a entidade e as demais seguem
+     * carregamento LAZY. Diferente de {@link #fetch(String)}, o plano é repassado ao provedor como hint, sem adicionar
+     * JOIN FETCH à consulta.
+     * @param attributePaths Propriedades, podendo ser caminhos com pontos (ex.: <code>"pedidos.itens"</code>)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> fetchGraph(String ... attributePaths) {
+        return addGraph(HINT_FETCH_GRAPH, attributePaths);
+    }
+
+    /**
+     * Define um fetch graph a partir das propriedades do Metamodel (ver {@link #fetchGraph(String...)})
+     * @param attributes Propriedades da entidade (ex.: <code>Pessoa_.enderecos</code>)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> fetchGraph(Attribute<?, ?> ... attributes) {
+        return fetchGraph(getAttributeNames(attributes));
+    }
+
+    /**
+     * Define um load graph (JPA entity graph): as propriedades informadas são carregadas junto com a entidade e as
+     * demais seguem o carregamento definido no mapeamento (ver {@link #fetchGraph(String...)})
+     * @param attributePaths Propriedades, podendo ser caminhos com pontos
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> loadGraph(String ... attributePaths) {
+        return addGraph(HINT_LOAD_GRAPH, attributePaths);
+    }
+
+    /**
+     * Define um load graph a partir das propriedades do Metamodel (ver {@link #loadGraph(String...)})
+     * @param attributes Propriedades da entidade
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> loadGraph(Attribute<?, ?> ... attributes) {
+        return loadGraph(getAttributeNames(attributes));
+    }
+
+    private JpaCriteriaHelper<T> addGraph(String hint, String ... attributePaths) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( graphHint != null && ! graphHint.equals(hint) ) {
+            throw new RuntimeException("Não é possível combinar fetch graph e load graph na mesma consulta.");
+        }
+        for (String attributePath : attributePaths) {
+            List<String> fieldNames = splitColumn(attributePath);
+            resolvePath(fieldNames);
+            graphPaths.add(fieldNames);
+        }
+        this.graphHint = hint;
+        return this;
+    }
+
+    private static String[] getAttributeNames(Attribute<?, ?> ... attributes) {
+        String[] names = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            names[i] = attributes[i].getName();
+        }
+        return names;
+    }
+
+    private void setupGraph(TypedQuery<T> tq) {
+        if ( graphHint != null ) {
+            tq.setHint(graphHint, createEntityGraph(em, entityClass, graphPaths));
+        }
+    }
+
+    /**
+     * Monta o entity graph com os caminhos informados no EntityManager informado (usado também por {@link CompiledQuery})
+     */
+    static <E> EntityGraph<E> createEntityGraph(EntityManager em, Class<E> entityClass, List<List<String>> graphPaths) {
+        EntityGraph<E> graph = em.createEntityGraph(entityClass);
+        Map<List<String>, Subgraph<?>> subgraphs = new HashMap<>();
+        for (List<String> fieldNames : graphPaths) {
+            String attribute = fieldNames.get(fieldNames.size() - 1);
+            if ( fieldNames.size() == 1 ) {
+                graph.addAttributeNodes(attribute);
+            } else {
+                getSubgraph(graph, subgraphs, fieldNames.subList(0, fieldNames.size() - 1)).addAttributeNodes(attribute);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Obtem (criando uma única vez por caminho) o subgraph do caminho informado
+     */
+    private static Subgraph<?> getSubgraph(EntityGraph<?> graph, Map<List<String>, Subgraph<?>> subgraphs, List<String> fieldNames) {
+        Subgraph<?> subgraph = subgraphs.get(fieldNames);
+        if ( subgraph == null ) {
+            String attribute = fieldNames.get(fieldNames.size() - 1);
+            if ( fieldNames.size() == 1 ) {
+                subgraph = graph.addSubgraph(attribute);
+            } else {
+                subgraph = getSubgraph(graph, subgraphs, fieldNames.subList(0, fieldNames.size() - 1)).addSubgraph(attribute);
+            }
+            subgraphs.put(new ArrayList<>(fieldNames), subgraph);
+        }
+        return subgraph;
+    }
+
+    /**
+     * Define a paginação a partir de um {@link PaginationI}.
+     * Se for um {@link CursorPaginationI} com cursor informado, ativa a paginação por chave (ver {@link #seekCursor(String)})
+     * @param paginationI Dados de paginação
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> pagination(PaginationI paginationI) {
+        if (paginationI instanceof CursorPaginationI
+                && ((CursorPaginationI) paginationI).getCursor() != null) {
+            if (paginationI.getPageSize() != null) {
+                this.pageSize = paginationI.getPageSize();
+            }
+            return seekCursor(((CursorPaginationI) paginationI).getCursor());
+        }
+
+        if (paginationI.getPageNumber() != null
+                && paginationI.getPageSize() != null) {
+            this.pageSize = paginationI.getPageSize();
+            this.pageNumber = paginationI.getPageNumber();
+        }
+
+        return this;
+    }
+
+    /**
+     * Ativa a paginação por chave (seek): retorna a página de registros posteriores ao último registro da página anterior,
+     * segundo as clausulas ORDER BY. O custo de cada página independe da sua profundidade.
+     * <p>
+     * Os campos do ORDER BY devem identificar unicamente o registro (inclua o id como último campo) e não podem ser nulos.
+     * @param lastKeys Valores dos campos do ORDER BY do último registro da página anterior, na mesma ordem
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> seek( Object ... lastKeys ) {
+        demandsOperation(SqlOperation.SELECT);
+        this.seekKeys = Arrays.asList(lastKeys);
+        this.pageNumber = null;
+        return this;
+    }
+
+    /**
+     * Ativa a paginação por chave (seek) a partir de um cursor obtido com {@link #getCursor(Object)}
+     * @param cursor Cursor opaco (informe <b>null</b> para obter a primeira página)
+     * @return objeto de consulta
+     */
+    public JpaCriteriaHelper<T> seekCursor( String cursor ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( cursor == null ) {
+            this.seekKeys = null;
+            this.pageNumber = 1;
+            return this;
+        }
+        return seek( KeysetCursor.decode(cursor).toArray() );
+    }
+
+    /**
+     * Gera o cursor opaco da próxima página, a partir do último registro da página atual
+     * @param lastResult Último registro retornado
+     * @return cursor para ser informado em {@link #seekCursor(String)}, ou <b>null</b> se não houver registro
+     */
+    public String getCursor( T lastResult ) {
+        if ( lastResult == null ) {
+            return null;
+        }
+        if ( orders.isEmpty() ) {
+            throw new RuntimeException("Nenhum cláusula ORDER BY definida");
+        }
+        List<Object> keys = new ArrayList<>();
+        for (OrderEntry orderEntry : orders) {
+            keys.add( getAttributeValue(lastResult, orderEntry.fieldNames) );
+        }
+        return KeysetCursor.encode(keys);
+    }
+
+    /**
+     * Gera o cursor opaco da próxima página, a partir da página atual
+     * @param results Registros da página atual
+     * @return cursor para ser informado em {@link #seekCursor(String)}, ou <b>null</b> se a página estiver vazia
+     */
+    public String getCursor( List<T> results ) {
+        return results.isEmpty() ? null : getCursor( results.get(results.size() - 1) );
+    }
+
+    /**
+     * Lê o valor de uma propriedade (possivelmente aninhada) de uma entidade, usando o Metamodel
+     */
+    private Object getAttributeValue( Object object, List<String> fieldNames ) {
+        Object value = object;
+        for (Step step : resolvePath(fieldNames).getSteps()) {
+            if ( value == null ) {
+                return null;
+            }
+            Member member = step.getJavaMember();
+            try {
+                if ( member instanceof Field ) {
+                    ((Field) member).setAccessible(true);
+                    value = ((Field) member).get(value);
+                } else {
+                    ((Method) member).setAccessible(true);
+                    value = ((Method) member).invoke(value);
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Não foi possível ler a propriedade " + step.getName() + " de " + value.getClass().getName(), e);
+            }
+        }
+        return value;
+    }
+
+    // TODO: necessário falar com Pietro ??
+    public static <T> JpaCriteriaHelper<T> create(EntityManager em, Class<T> entityClazz) {
+        return new JpaCriteriaHelper<>( em, entityClazz, SqlOperation.SELECT );
+    }
+
+    /**
+     * Obtem as columns especificadas na classe tupleClazz E a partir da entityClass T.
+     *
+     * <p>
+     * A classe tupleClazz precisa possuir um construtor que respeite a ordem das columns informadas.
+     * As colunas podem ser caminhos com pontos (ex.: <code>"endereco.cidade"</code>). As linhas são convertidas por um
+     * construtor localizado uma única vez por classe e lista de colunas, sem instanciar as entidades.
+     * Para {@link Tuple} e <code>Object[]</code> equivale a {@link #getTuples(List)} e {@link #getArrayResults(List)}.
+     *
+     * @param tupleClazz POJO de retorno para a busca.
+     * @param columns colunas que se deseja trazer da entityClass T.
+     *
+     * @return
+     */
+    public <C> List<C> getTupleResults(Class<C> tupleClazz, List<String> columns) {
         demandsOperation(SqlOperation.SELECT);
-        this.pageNumber = pageNumber;
-        return this;
+        Objects.requireNonNull(tupleClazz);
+        Objects.requireNonNull(columns);
+
+        if ( ! columns.isEmpty() && tupleClazz == Tuple.class ) {
+            @SuppressWarnings("unchecked")
+            List<C> tuples = (List<C>) getTuples(columns);
+            return tuples;
+        }
+        if ( ! columns.isEmpty() && tupleClazz == Object[].class ) {
+            @SuppressWarnings("unchecked")
+            List<C> rows = (List<C>) getArrayResults(columns);
+            return rows;
+        }
+
+        if ( ! columns.isEmpty() ) {
+            List<Class<?>> columnTypes = new ArrayList<>();
+            for (String column : columns) {
+                columnTypes.add( resolvePath(splitColumn(column)).getJavaType() );
+            }
+            ProjectionMapper<C> mapper = ProjectionMapper.of(entityClass, tupleClazz, columns, columnTypes);
+
+            List<Object[]> rows = getArrayResults(columns);
+            List<C> results = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                results.add( mapper.map(row) );
+            }
+            return results;
+        }
+
+        WhereEntry inEntry = orders.isEmpty() ? getSplittableIn() : null;
+        if ( inEntry != null ) {
+            List<C> results = new ArrayList<>();
+            runInChunks(inEntry, chunk -> chunk.getTupleResults(tupleClazz, columns)).forEach(results::addAll);
+            return results;
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_TUPLE_RESULTS);
+        CriteriaQuery<C> cq = em.getCriteriaBuilder().createQuery(tupleClazz);
+        Root<T> root = newRoot(cq::from);
+
+        setupQuery(cq, root);
+
+        TypedQuery<C> typedQuery = em.createQuery(cq);
+
+        setupHints(typedQuery);
+        setupPagination(typedQuery);
+        timer.built();
+
+        return timer.execute( typedQuery::getResultList );
     }
 
     /**
-     * Obtem apenas o primeiro registro do resultado da consulta
-     * @return O primeiro objeto retornado da consulta ou <b>null</b> se a consulta não retornar resultados
+     * Obtem as colunas especificadas como {@link Tuple}, sem instanciar as entidades nem classes de retorno.
+     * Os elementos são identificados pelo nome da coluna (ex.: <code>tuple.get("endereco.cidade")</code>).
+     * @param columns Colunas, podendo ser caminhos com pontos
+     * @return Lista de resultados
      */
-    public T getFirstResult() {
+    public List<Tuple> getTuples(List<String> columns) {
         demandsOperation(SqlOperation.SELECT);
-        List<T> resultList = this.setPageSize(1).page(1).getResults();
-        if ( resultList.isEmpty() ) {
-            return null;
-        } else {
-            return resultList.get(0);
-        }
+        return getProjection(CriteriaBuilder::createTupleQuery, columns);
     }
 
     /**
-     * Obtém apenas o primeiro registro do resultado da cpnsulta
-     * @return O primeiro objeto retornado da consulta ou <b>null</b> se a consulta não retornar resultados
+     * Obtem as colunas especificadas como vetores, na ordem informada, sem instanciar as entidades nem classes de retorno
+     * @param columns Colunas, podendo ser caminhos com pontos
+     * @return Lista de resultados
      */
-    public Optional<T> getFirstResultOpt() {
+    public List<Object[]> getArrayResults(List<String> columns) {
         demandsOperation(SqlOperation.SELECT);
-        T firstResult = getFirstResult();
+        List<?> rows = getProjection(cb -> cb.createQuery(Object[].class), columns);
 
-        if (firstResult == null) {
-            return Optional.empty();
-        } else {
-            return Optional.of(firstResult);
+        // alguns provedores (ex.: Hibernate) retornam o valor, e não um vetor, quando há uma única coluna
+        List<Object[]> results = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            results.add( row instanceof Object[] ? (Object[]) row : new Object[] { row } );
         }
+        return results;
     }
 
-    /**
-     * Obtem unico registro do resultado da consulta
-     * @return O primeiro objeto retornado da consulta
-     */
-    public T getSingleResult() {
-        demandsOperation(SqlOperation.SELECT);
-        CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClass);
-        Root<T> root = criteriaQuery.from(entityClass);
-        criteriaQuery.select(root);
+    private <R> List<R> getProjection(Function<CriteriaBuilder, CriteriaQuery<R>> queryFactory, List<String> columns) {
+        if ( columns.isEmpty() ) {
+            throw new RuntimeException("Nenhuma coluna informada.");
+        }
+        if ( isContradiction() ) {
+            return new ArrayList<>();
+        }
 
-        setupQuery(criteriaQuery, root);
+        WhereEntry inEntry = orders.isEmpty() ? getSplittableIn() : null;
+        if ( inEntry != null ) {
+            List<R> results = new ArrayList<>();
+            runInChunks(inEntry, chunk -> chunk.getProjection(queryFactory, columns)).forEach(results::addAll);
+            return results;
+        }
+
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_TUPLE_RESULTS);
+        CriteriaQuery<R> cq = queryFactory.apply(criteriaBuilder);
+        Root<T> root = newRoot(cq::from);
+
+        setupQuery(cq, root);
 
-        return em.createQuery(criteriaQuery).getSingleResult();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String column : columns) {
+            selections.add( getPath(splitColumn(column), root).alias(column) );
+        }
+        cq.multiselect(selections);
+
+        TypedQuery<R> typedQuery = em.createQuery(cq);
+
+        setupHints(typedQuery);
+        setupPagination(typedQuery);
+        timer.built();
+
+        return timer.execute( typedQuery::getResultList );
     }
 
     /**
-     * Verifica se a consulta retorna algum resultado
-     * @return <li><b>true</b>: existem registros
-     *         <li><b>false</b>: não existem registros
+     * Define as propriedades de agrupamento (GROUP BY) de {@link #getGroupResults(Aggregate...)}
+     * @param fieldNames Propriedades, podendo ser caminhos com pontos
+     * @return objeto de consulta
      */
-    public boolean exists() {
-        return this.getFirstResult() != null;
+    public JpaCriteriaHelper<T> groupBy( String ... fieldNames ) {
+        demandsOperation(SqlOperation.SELECT);
+        for (String fieldName : fieldNames) {
+            List<String> path = splitColumn(fieldName);
+            resolvePath(path);
+            groupFields.add(path);
+        }
+        return this;
     }
 
     /**
-     * Efetua a contagem dos registros da consulta
-     * @return numero de registros retornados pela consulta
+     * Inclui condição HAVING sobre uma agregação (as condições são ligadas por AND)
+     * @param aggregate Agregação (não precisa fazer parte do resultado)
+     * @param comparator Operador de comparação: EQUAL, NOT_EQUAL, GREATER_THAN ou LESS_THAN
+     * @param value Valor
+     * @return objeto de consulta
      */
-    public long count() {
+    public JpaCriteriaHelper<T> having( Aggregate aggregate, ComparatorOperator comparator, Comparable<?> value ) {
         demandsOperation(SqlOperation.SELECT);
-        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
-        Root<T>                 rootCount = criteriaQuery.from(entityClass);
-
-        criteriaQuery.select( criteriaBuilder.count( rootCount ) );
-
-        if ( ! wheres.isEmpty() ) {
-            criteriaQuery.where( getPredicates(rootCount, wheres) );
+        if ( comparator != ComparatorOperator.EQUAL && comparator != ComparatorOperator.NOT_EQUAL
+                && comparator != ComparatorOperator.GREATER_THAN && comparator != ComparatorOperator.LESS_THAN ) {
+            throw new RuntimeException("Operador não suportado em HAVING: " + comparator);
         }
-
-        return em.createQuery( criteriaQuery ).getSingleResult();
+        havings.add( new HavingEntry(aggregate, comparator, Objects.requireNonNull(value), null) );
+        return this;
     }
-    
+
     /**
-     * Efetua a soma do campo informado dos registros da consulta 
-     * @return resultado da soma do campo informa dos registros retornados pela consulta
+     * Inclui condição HAVING ... BETWEEN sobre uma agregação
+     * @param aggregate Agregação (não precisa fazer parte do resultado)
+     * @param comparator Operador de comparação: BETWEEN
+     * @param valueIni Valor inicial
+     * @param valueEnd Valor final
+     * @return objeto de consulta
      */
-    public <S extends Number> S sum( SingularAttribute<T, S> fieldToSum, Class<S> resultClass ) {
-        return sum(fieldToSum.getName(), resultClass);
+    public JpaCriteriaHelper<T> having( Aggregate aggregate, ComparatorOperator comparator, Comparable<?> valueIni, Comparable<?> valueEnd ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( comparator != ComparatorOperator.BETWEEN ) {
+            throw new RuntimeException("Quando informados dois valores, é obrigatório o uso de " + ComparatorOperator.BETWEEN);
+        }
+        havings.add( new HavingEntry(aggregate, comparator, Objects.requireNonNull(valueIni), Objects.requireNonNull(valueEnd)) );
+        return this;
     }
-    
+
     /**
-     * Efetua a soma do campo informado dos registros da consulta 
-     * @return resultado da soma do campo informa dos registros retornados pela consulta
+     * Inclui ordenação por uma agregação em {@link #getGroupResults(Aggregate...)}, aplicada após as clausulas
+     * {@link #orderBy(String...)} (que devem usar apenas propriedades de agrupamento)
+     * @param aggregate Agregação (não precisa fazer parte do resultado)
+     * @param order Direção
+     * @return objeto de consulta
      */
-    public <S extends Number> S sum( String fieldToSum, Class<S> resultClass ) {
+    public JpaCriteriaHelper<T> orderBy( Aggregate aggregate, OrderDirection order ) {
         demandsOperation(SqlOperation.SELECT);
-        CriteriaQuery<S> criteriaQuery = criteriaBuilder.createQuery(resultClass);
-        Root<T>              rootCount = criteriaQuery.from(entityClass);
-        
-        criteriaQuery.select( criteriaBuilder.sum( rootCount.get(fieldToSum) ) );
-        
-        if ( ! wheres.isEmpty() ) {
-            criteriaQuery.where( getPredicates(rootCount, wheres) );
-        }
-        
-        return em.createQuery( criteriaQuery ).getSingleResult();
+        aggregateOrders.add( new AggregateOrder(aggregate, order) );
+        return this;
     }
 
     /**
-     * Efetua operação de UPDATE
-     * @return
+     * Efetua a consulta agrupada: uma linha por combinação de valores das propriedades de {@link #groupBy(String...)},
+     * com as agregações calculadas no banco. Respeita o WHERE, o HAVING, as ordenações e a paginação.
+     * @param aggregates Agregações de cada grupo
+     * @return uma mapa por grupo, com as propriedades de agrupamento (pelo nome informado) e as agregações (pelo apelido)
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" }) // TODO: tentar retirar estes warnings
-    public int execute() {
-        demandsOperation(SqlOperation.UPDATE);
-        CriteriaUpdate<T> criteriaUpdate = criteriaBuilder.createCriteriaUpdate(entityClass);
-        Root<T> rootUpdate               = criteriaUpdate.from(entityClass);
-
-        if ( ! wheres.isEmpty() ) {
-            criteriaUpdate.where( getPredicates(rootUpdate, wheres) );
+    public List<Map<String, Object>> getGroupResults( Aggregate ... aggregates ) {
+        List<String> labels = new ArrayList<>();
+        for (List<String> groupField : groupFields) {
+            labels.add( String.join(".", groupField) );
+        }
+        for (Aggregate aggregate : aggregates) {
+            labels.add( aggregate.getAlias() );
         }
 
-        if ( updates.isEmpty() ) {
-            throw new RuntimeException("Nenhum campo de update foi informado.");
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Object[] row : getGroupRows(aggregates)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (int i = 0; i < row.length; i++) {
+                result.put(labels.get(i), row[i]);
+            }
+            results.add(result);
         }
+        return results;
+    }
 
-        for (Entry<List<String>, Object> updateEntry : updates.entrySet()) {
-            Path path = getPath(updateEntry.getKey(), rootUpdate);
-            criteriaUpdate.set(path, updateEntry.getValue());
+    /**
+     * Efetua a consulta agrupada (ver {@link #getGroupResults(Aggregate...)}), convertendo cada linha em um objeto da
+     * classe informada, que deve possuir um construtor com as propriedades de agrupamento seguidas das agregações
+     * @param resultClass Classe de retorno
+     * @param aggregates Agregações de cada grupo
+     * @return Lista de resultados
+     */
+    public <C> List<C> getGroupResults( Class<C> resultClass, Aggregate ... aggregates ) {
+        List<String> columns = new ArrayList<>();
+        List<Class<?>> columnTypes = new ArrayList<>();
+        for (List<String> groupField : groupFields) {
+            columns.add( String.join(".", groupField) );
+            columnTypes.add( resolvePath(groupField).getJavaType() );
+        }
+        for (Aggregate aggregate : aggregates) {
+            columns.add( aggregate.getType() + "(" + aggregate.getFieldName() + ")" );
+            columnTypes.add( getAggregateType(aggregate) );
         }
+        ProjectionMapper<C> mapper = ProjectionMapper.of(entityClass, resultClass, columns, columnTypes);
 
-        return em.createQuery( criteriaUpdate ).executeUpdate();
+        List<C> results = new ArrayList<>();
+        for (Object[] row : getGroupRows(aggregates)) {
+            results.add( mapper.map(row) );
+        }
+        return results;
     }
 
-    private void addTowhere( List<String> fieldNames, ComparatorOperator comparator, Object valueIni, Object valueEnd, LogicalOperator logicalOperator ) {
-        if ( ( comparator.equals(ComparatorOperator.GREATER_THAN) || comparator.equals(ComparatorOperator.LESS_THAN) )
-                && ! (valueIni instanceof Comparable) ) {
-            throw new RuntimeException("Para os tipos de operador "
-                    + ComparatorOperator.GREATER_THAN + " e " + ComparatorOperator.LESS_THAN
-                    + " é necessário que o objeto de valor implemente " + Comparable.class.getName() + ".");
+    private List<Object[]> getGroupRows( Aggregate ... aggregates ) {
+        demandsOperation(SqlOperation.SELECT);
+        if ( groupFields.isEmpty() ) {
+            throw new RuntimeException("Nenhuma propriedade de agrupamento informada (groupBy).");
+        }
+        if ( isContradiction() ) {
+            return new ArrayList<>();
         }
 
-        if ( comparator.equals(ComparatorOperator.IN) && ! (valueIni instanceof Collection) ) {
-            throw new RuntimeException("Para o tipo de operador " + ComparatorOperator.IN
-                    + " é necessário que o objeto de valor implemente " + Collection.class.getName() + ".");
+        QueryListeners.Timer timer = QueryListeners.start(this, QueryOperation.GET_GROUP_RESULTS);
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = newRoot(criteriaQuery::from);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Expression<?>> grouping = new ArrayList<>();
+        for (List<String> groupField : groupFields) {
+            Path<?> path = getPath(groupField, root);
+            selections.add(path);
+            grouping.add(path);
+        }
+        for (Aggregate aggregate : aggregates) {
+            selections.add( getAggregateExpression(aggregate, root) );
         }
+        criteriaQuery.multiselect(selections).groupBy(grouping);
 
-        if ( valueEnd != null && ! comparator.equals( ComparatorOperator.BETWEEN ) ) {
-            throw new RuntimeException("Quando informados dois valores, é obrigatório o uso de " + ComparatorOperator.BETWEEN);
+        setupWhere(criteriaQuery, root);
+        if ( ! havings.isEmpty() ) {
+            criteriaQuery.having( getHavingPredicates(root) );
         }
 
-        if ( logicalOperator == null ) {
-            logicalOperator = LogicalOperator.AND;
+        orderBy(criteriaQuery, root);
+        if ( ! aggregateOrders.isEmpty() ) {
+            List<Order> jpaOrders = new ArrayList<>(criteriaQuery.getOrderList());
+            for (AggregateOrder aggregateOrder : aggregateOrders) {
+                Expression<?> expression = getAggregateExpression(aggregateOrder.aggregate, root);
+                jpaOrders.add( aggregateOrder.order == OrderDirection.ASC ? criteriaBuilder.asc(expression) : criteriaBuilder.desc(expression) );
+            }
+            criteriaQuery.orderBy(jpaOrders);
         }
 
-        wheres.add( new WhereEntry(fieldNames, comparator, valueIni, valueEnd, logicalOperator) );
+        TypedQuery<Tuple> typedQuery = em.createQuery(criteriaQuery);
+
+        setupHints(typedQuery);
+        setupPagination(typedQuery);
+        timer.built();
+
+        return timer.execute( () -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Tuple tuple : typedQuery.getResultList()) {
+                rows.add( tuple.toArray() );
+            }
+            return rows;
+        } );
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
-    private <E> Predicate[] getPredicates( Root<E> root, List<WhereEntry> wheres ) {
-        List<Predicate> predicates = new ArrayList<>();
-        Predicate predMaster = null;
+    private <E> Expression<?> getAggregateExpression( Aggregate aggregate, Root<E> root ) {
+        if ( aggregate.getFieldName() == null ) {
+            return criteriaBuilder.count(root);
+        }
+        Expression path = getPath(splitColumn(aggregate.getFieldName()), root);
+        switch ( aggregate.getType() ) {
+            case COUNT:
+                return criteriaBuilder.count(path);
+            case COUNT_DISTINCT:
+                return criteriaBuilder.countDistinct(path);
+            case SUM:
+                return criteriaBuilder.sum(path);
+            case MIN:
+                return criteriaBuilder.least(path);
+            case MAX:
+                return criteriaBuilder.greatest(path);
+            case AVG:
+                return criteriaBuilder.avg(path);
+            default:
+                throw new RuntimeException("Tipo de agregação não conhecido: " + aggregate.getType());
+        }
+    }
 
-        for (WhereEntry whereEntry : wheres) {
-            Predicate predicate;
+    /**
+     * Tipo Java do resultado da agregação, segundo a especificação JPA
+     */
+    private Class<?> getAggregateType( Aggregate aggregate ) {
+        switch ( aggregate.getType() ) {
+            case COUNT:
+            case COUNT_DISTINCT:
+                return Long.class;
+            case AVG:
+                return Double.class;
+            default:
+                break;
+        }
+        Class<?> fieldType = wrap( resolvePath(splitColumn(aggregate.getFieldName())).getJavaType() );
+        if ( aggregate.getType() != Aggregate.Type.SUM || fieldType == BigDecimal.class || fieldType == BigInteger.class ) {
+            return fieldType;
+        }
+        return fieldType == Double.class || fieldType == Float.class ? Double.class : Long.class;
+    }
 
-            // --- OPERADOR DE COMPARAÇÃO ---
-            Path path = getPath(whereEntry.fieldNames, root);
-            switch (whereEntry.comparatorOperator) {
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // TODO: tentar retirar estes warnings
+    private <E> Predicate[] getHavingPredicates( Root<E> root ) {
+        List<Predicate> predicates = new ArrayList<>();
+        for (HavingEntry having : havings) {
+            Expression expression = getAggregateExpression(having.aggregate, root);
+            switch ( having.comparatorOperator ) {
                 case EQUAL:
-                    if ( whereEntry.valueIni == null ) {
-                        predicate = criteriaBuilder.isNull(path);
-                    } else {
-                        predicate = criteriaBuilder.equal(path, whereEntry.valueIni);
-                    }
+                    predicates.add( criteriaBuilder.equal(expression, having.valueIni) );
                     break;
                 case NOT_EQUAL:
-                    if ( whereEntry.valueIni == null ) {
-                        predicate = criteriaBuilder.isNotNull(path);
-                    } else {
-                        predicate = criteriaBuilder.notEqual(path, whereEntry.valueIni);
-                    }
+                    predicates.add( criteriaBuilder.notEqual(expression, having.valueIni) );
                     break;
                 case GREATER_THAN:
-                    predicate = criteriaBuilder.greaterThan(path, (Comparable) whereEntry.valueIni);
+                    predicates.add( criteriaBuilder.greaterThan(expression, (Comparable) having.valueIni) );
                     break;
                 case LESS_THAN:
-                    predicate = criteriaBuilder.lessThan(path, (Comparable) whereEntry.valueIni);
-                    break;
-                case LIKE:
-                    predicate = criteriaBuilder.like(path, whereEntry.valueIni.toString());
-                    break;
-                case LIKE_IGNORE_CASE:
-                    predicate = criteriaBuilder.like( criteriaBuilder.upper(path), whereEntry.valueIni.toString().toUpperCase() );
-                    break;
-                case IN:
-                    predicate = path.in( (Collection) whereEntry.valueIni);
+                    predicates.add( criteriaBuilder.lessThan(expression, (Comparable) having.valueIni) );
                     break;
                 case BETWEEN:
-                    predicate = criteriaBuilder.between(path, (Comparable) whereEntry.valueIni, (Comparable) whereEntry.valueEnd);
+                    predicates.add( criteriaBuilder.between(expression, (Comparable) having.valueIni, (Comparable) having.valueEnd) );
                     break;
                 default:
-                    throw new RuntimeException("Tipo de operador de comparação não conhecido: " + whereEntry.comparatorOperator);
-            }
-
-            if ( predMaster == null ) {
-                predMaster = predicate;
-            } else {
-                // --- OPERADOR LÓGICO ---
-                if ( whereEntry.logicalOperator != null ) {
-                    switch ( whereEntry.logicalOperator ) {
-                        case AND:
-                            predMaster = criteriaBuilder.and( predMaster, predicate );
-                            break;
-                        case OR:
-                            predMaster = criteriaBuilder.or( predMaster, predicate );
-                            break;
-                        default:
-                            throw new RuntimeException("Tipo de operador lógico não conhecido: " + whereEntry.comparatorOperator);
-                    }
-                }
+                    throw new RuntimeException("Operador não suportado em HAVING: " + having.comparatorOperator);
             }
-
         }
-        predicates.add( predMaster );
-
         return predicates.toArray(new Predicate[] {});
     }
 
-    // TODO: testar se estah fazendo JOIN corretamente para multiplos niveis
-    private <E> Path<?> getPath(List<String> fieldNames, Root<E> root) {
-        javax.persistence.criteria.Path<?> entity = root;
-
-        for (String fieldName : fieldNames) {
-            Path<Object> fieldAsPath = entity.get(fieldName);
-            if ( Collection.class.isAssignableFrom( fieldAsPath.getJavaType() ) ) {
-                if ( ! joinsMap.containsKey(fieldAsPath) ) {
-                    joinsMap.put(fieldAsPath, ((From<?, ?>) entity).join(fieldName));
-                }
-                entity = joinsMap.get(fieldAsPath);
-            } else {
-                entity = entity.get(fieldName);
-            }
-        }
-
-        return entity;
-    }
-
-    // TODO: demandsOperation(SqlOperation.SELECT); ?
-    public JpaCriteriaHelper<T> fetch(String property) {
-        this.directFetches.add(property);
-
-        return this;
-    }
-
-    // TODO: demandsOperation(SqlOperation.SELECT); ?
-    public <E> JpaCriteriaHelper<T> fetch(String fetch, Class<E> clazz) {
-        this.listFetches.add(new ListFetch<>(fetch, clazz));
-
-        return this;
+    private static List<String> splitColumn(String column) {
+        return Arrays.asList(column.split("\\."));
     }
 
-    public JpaCriteriaHelper<T> pagination(PaginationI paginationI) {
-        if (paginationI.getPageNumber() != null
-                && paginationI.getPageSize() != null) {
-            this.pageSize = paginationI.getPageSize();
-            this.pageNumber = paginationI.getPageNumber();
+    private void setupHints(Query tq) {
+        for (Entry<String, Object> hint : getHints().entrySet()) {
+            tq.setHint(hint.getKey(), hint.getValue());
         }
 
-        return this;
-    }
-
-    // TODO: necessário falar com Pietro ??
-    public static <T> JpaCriteriaHelper<T> create(EntityManager em, Class<T> entityClazz) {
-        return new JpaCriteriaHelper<>( em, entityClazz, SqlOperation.SELECT );
+        FlushModeType effectiveFlushMode = getFlushMode();
+        if (effectiveFlushMode != null) {
+            tq.setFlushMode(effectiveFlushMode);
+        }
     }
 
     /**
-     * Obtem as columns especificadas na classe tupleClazz E a partir da entityClass T.
-     *
-     * <p>
-     * A classe tupleClazz precisa possuir um construtor que respeite a ordem das columns informadas.
-     *
-     * @param tupleClazz POJO de retorno para a busca.
-     * @param columns colunas que se deseja trazer da entityClass T.
-     *
-     * @return
+     * Hints das consultas de leitura, na ordem de aplicação: padrões, fetch size, somente leitura, cache e os
+     * definidos em {@link #setHint(String, Object)}
      */
-    public <C> List<C> getTupleResults(Class<C> tupleClazz, List<String> columns) {
-        demandsOperation(SqlOperation.SELECT);
-        Objects.requireNonNull(tupleClazz);
-        Objects.requireNonNull(columns);
-
-        CriteriaQuery<C> cq = em.getCriteriaBuilder().createQuery(tupleClazz);
-        Root<T> root = cq.from(entityClass);
+    private Map<String, Object> getHints() {
+        Map<String, Object> queryHints = new LinkedHashMap<>(defaultHints);
 
-        setupQuery(cq, root);
+        Integer effectiveFetchSize = fetchSize != null ? fetchSize : defaultFetchSize;
+        if (effectiveFetchSize != null) {
+            queryHints.put(HINT_HIBERNATE_FETCH_SIZE, effectiveFetchSize);
+            queryHints.put(HINT_ECLIPSELINK_FETCH_SIZE, effectiveFetchSize);
+        }
 
-        if (!columns.isEmpty()) {
-            List<Selection<?>> selections = new ArrayList<>();
+        if (readOnly != null ? readOnly : defaultReadOnly) {
+            queryHints.put(HINT_HIBERNATE_READ_ONLY, true);
+            queryHints.put(HINT_ECLIPSELINK_READ_ONLY, "true");
+        }
 
-            for (String column : columns) {
-                selections.add(root.get(column));
+        if (cacheable) {
+            queryHints.put(HINT_HIBERNATE_CACHEABLE, true);
+            queryHints.put(HINT_ECLIPSELINK_QUERY_CACHE, "true");
+            if (cacheRegion != null) {
+                queryHints.put(HINT_HIBERNATE_CACHE_REGION, cacheRegion);
             }
-
-            Selection<?>[] selectionsArray = selections.toArray(new Selection<?>[selections.size()]);
-            cq.multiselect(selectionsArray);
+        }
+        if (cacheRetrieveMode != null) {
+            queryHints.put(HINT_CACHE_RETRIEVE_MODE, cacheRetrieveMode);
+        }
+        if (cacheStoreMode != null) {
+            queryHints.put(HINT_CACHE_STORE_MODE, cacheStoreMode);
         }
 
-        TypedQuery<C> typedQuery = em.createQuery(cq);
-
-        setupPagination(typedQuery);
+        queryHints.putAll(hints);
+        return queryHints;
+    }
 
-        return typedQuery.getResultList();
+    private FlushModeType getFlushMode() {
+        return flushMode != null ? flushMode : defaultFlushMode;
     }
 
     private <E> void setupPagination(TypedQuery<E> tq) {
-        if (pageNumber != null) {
+        if (seekKeys != null) {
+            tq.setMaxResults(pageSize);
+        } else if (pageNumber != null) {
             tq.setFirstResult((pageNumber - 1) * pageSize).setMaxResults(pageSize);
         }
     }
@@ -0,0 +1,168 @@
+package org.jpahelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Codifica os valores de chave da paginação por chave em um cursor opaco (Base64 URL-safe).
+ * <p>
+ * Apenas tipos simples são aceitos; não é usada serialização Java, já que o cursor normalmente volta do cliente.
+ */
+final class KeysetCursor {
+
+    private static final byte STRING      = 1;
+    private static final byte INTEGER     = 2;
+    private static final byte LONG        = 3;
+    private static final byte SHORT       = 4;
+    private static final byte BYTE        = 5;
+    private static final byte DOUBLE      = 6;
+    private static final byte FLOAT       = 7;
+    private static final byte BIG_DECIMAL = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte BOOLEAN     = 10;
+    private static final byte CHARACTER   = 11;
+    private static final byte DATE        = 12;
+    private static final byte LOCAL_DATE  = 13;
+    private static final byte LOCAL_DATE_TIME = 14;
+    private static final byte INSTANT     = 15;
+    private static final byte UUID_VALUE  = 16;
+    private static final byte TIMESTAMP   = 17;
+
+    private KeysetCursor() {
+    }
+
+    static String encode( List<Object> keys ) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(keys.size());
+            for (Object key : keys) {
+                write(out, key);
+            }
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException("Não foi possível gerar o cursor", e);
+        }
+    }
+
+    static List<Object> decode( String cursor ) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            int size = in.readShort();
+            List<Object> keys = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                keys.add(read(in));
+            }
+            return keys;
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Cursor de paginação inválido: " + cursor, e);
+        }
+    }
+
+    private static void write( DataOutputStream out, Object key ) throws IOException {
+        if ( key instanceof String ) {
+            out.writeByte(STRING);
+            out.writeUTF((String) key);
+        } else if ( key instanceof Integer ) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) key);
+        } else if ( key instanceof Long ) {
+            out.writeByte(LONG);
+            out.writeLong((Long) key);
+        } else if ( key instanceof Short ) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) key);
+        } else if ( key instanceof Byte ) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) key);
+        } else if ( key instanceof Double ) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) key);
+        } else if ( key instanceof Float ) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) key);
+        } else if ( key instanceof BigDecimal ) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeUTF(key.toString());
+        } else if ( key instanceof BigInteger ) {
+            out.writeByte(BIG_INTEGER);
+            out.writeUTF(key.toString());
+        } else if ( key instanceof Boolean ) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) key);
+        } else if ( key instanceof Character ) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) key);
+        } else if ( key instanceof Timestamp ) {
+            // getTime() guarda apenas os milissegundos; os nanos completam a precisão do Timestamp
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) key).getTime());
+            out.writeInt(((Timestamp) key).getNanos());
+        } else if ( key instanceof Date ) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) key).getTime());
+        } else if ( key instanceof LocalDate ) {
+            out.writeByte(LOCAL_DATE);
+            out.writeUTF(key.toString());
+        } else if ( key instanceof LocalDateTime ) {
+            out.writeByte(LOCAL_DATE_TIME);
+            out.writeUTF(key.toString());
+        } else if ( key instanceof Instant ) {
+            out.writeByte(INSTANT);
+            out.writeUTF(key.toString());
+        } else if ( key instanceof UUID ) {
+            out.writeByte(UUID_VALUE);
+            out.writeUTF(key.toString());
+        } else {
+            throw new RuntimeException("Tipo não suportado no cursor de paginação: "
+                    + (key == null ? "null" : key.getClass().getName()));
+        }
+    }
+
+    private static Object read( DataInputStream in ) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STRING:          return in.readUTF();
+            case INTEGER:         return in.readInt();
+            case LONG:            return in.readLong();
+            case SHORT:           return in.readShort();
+            case BYTE:            return in.readByte();
+            case DOUBLE:          return in.readDouble();
+            case FLOAT:           return in.readFloat();
+            case BIG_DECIMAL:     return new BigDecimal(in.readUTF());
+            case BIG_INTEGER:     return new BigInteger(in.readUTF());
+            case BOOLEAN:         return in.readBoolean();
+            case CHARACTER:       return in.readChar();
+            case DATE:            return new Date(in.readLong());
+            case LOCAL_DATE:      return LocalDate.parse(in.readUTF());
+            case LOCAL_DATE_TIME: return LocalDateTime.parse(in.readUTF());
+            case INSTANT:         return Instant.parse(in.readUTF());
+            case UUID_VALUE:      return UUID.fromString(in.readUTF());
+            case TIMESTAMP:       return readTimestamp(in);
+            default:
+                throw new IOException("Tipo desconhecido: " + type);
+        }
+    }
+
+    private static Timestamp readTimestamp( DataInputStream in ) throws IOException {
+        Timestamp timestamp = new Timestamp(in.readLong());
+        timestamp.setNanos(in.readInt());
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.jpahelper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de uma consulta, com o total de registros da consulta sem paginação
+ *
+ * @param <T> Tipo dos registros
+ */
+public class Page<T> implements PaginationI {
+
+    private final List<T> content;
+
+    private final long total;
+
+    private final Integer pageNumber;
+
+    private final Integer pageSize;
+
+    public Page(List<T> content, long total, Integer pageNumber, Integer pageSize) {
+        this.content    = Collections.unmodifiableList(content);
+        this.total      = total;
+        this.pageNumber = pageNumber;
+        this.pageSize   = pageSize;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return número total de registros da consulta, considerando todas as páginas
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return número da página, ou <b>null</b> em paginação por chave
+     */
+    @Override
+    public Integer getPageNumber() {
+        return pageNumber;
+    }
+
+    @Override
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotalPages() {
+        return (int) ((total + pageSize - 1) / pageSize);
+    }
+
+    public boolean hasNext() {
+        return pageNumber != null ? (long) pageNumber * pageSize < total : content.size() == pageSize;
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.jpahelper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Divisão do intervalo <code>[mínimo, máximo]</code> de uma propriedade numérica ou de data em faixas de tamanho
+ * aproximadamente igual, usada pela leitura particionada.
+ */
+final class PartitionBounds {
+
+    private PartitionBounds() {
+    }
+
+    /**
+     * Calcula os limites das faixas. O primeiro e o último limites são exatamente o mínimo e o máximo informados; os
+     * intermediários são crescentes e do mesmo tipo Java dos valores. Podem ser geradas menos faixas que o pedido quando
+     * o intervalo não comporta valores distintos suficientes.
+     * @param min Menor valor da propriedade
+     * @param max Maior valor da propriedade
+     * @param parts Número de faixas desejado
+     * @return limites <code>[min, b1, ..., max]</code> (apenas <code>[min, max]</code> para uma única faixa)
+     * @throws RuntimeException se o tipo da propriedade não for suportado
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static List<Object> split( Object min, Object max, int parts ) {
+        List<Object> bounds = new ArrayList<>();
+        bounds.add(min);
+        for (int i = 1; i < parts; i++) {
+            Object bound = isDecimal(min) ? getDecimalBound(min, max, i, parts) : getIntegralBound(min, max, i, parts);
+            Comparable previous = (Comparable) bounds.get(bounds.size() - 1);
+            if ( previous.compareTo(bound) < 0 && ((Comparable) bound).compareTo(max) < 0 ) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(max);
+        return bounds;
+    }
+
+    private static boolean isDecimal( Object value ) {
+        return value instanceof Double || value instanceof Float || value instanceof BigDecimal;
+    }
+
+    /**
+     * Limite <code>i / parts</code> do intervalo de uma propriedade inteira ou de data, em aritmética inteira exata
+     * (um double não representa todos os valores de um Long acima de 2^53)
+     */
+    private static Object getIntegralBound( Object min, Object max, int i, int parts ) {
+        BigInteger lower = toBigInteger(min);
+        BigInteger range = toBigInteger(max).subtract(lower);
+        return fromBigInteger( lower.add( range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(parts)) ), min );
+    }
+
+    private static Object getDecimalBound( Object min, Object max, int i, int parts ) {
+        if ( min instanceof BigDecimal ) {
+            BigDecimal lower = (BigDecimal) min;
+            BigDecimal range = ((BigDecimal) max).subtract(lower);
+            return lower.add( range.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(parts), MathContext.DECIMAL64) );
+        }
+        double lower = ((Number) min).doubleValue();
+        double upper = ((Number) max).doubleValue();
+        double bound = lower + (upper - lower) * i / parts;
+        return min instanceof Float ? (Object) (float) bound : (Object) bound;
+    }
+
+    private static BigInteger toBigInteger( Object value ) {
+        if ( value instanceof BigInteger ) {
+            return (BigInteger) value;
+        } else if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+            return BigInteger.valueOf( ((Number) value).longValue() );
+        } else if ( value instanceof Date ) {
+            return BigInteger.valueOf( ((Date) value).getTime() );
+        } else if ( value instanceof LocalDate ) {
+            return BigInteger.valueOf( ((LocalDate) value).toEpochDay() );
+        } else if ( value instanceof LocalDateTime ) {
+            return BigInteger.valueOf( ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC) );
+        } else if ( value instanceof Instant ) {
+            return BigInteger.valueOf( ((Instant) value).toEpochMilli() );
+        }
+        throw new RuntimeException("Tipo não suportado para particionamento: " + value.getClass().getName()
+                + ". Use uma propriedade numérica ou de data.");
+    }
+
+    private static Object fromBigInteger( BigInteger key, Object sample ) {
+        if ( sample instanceof BigInteger ) {
+            return key;
+        }
+        long integral = key.longValueExact();
+        if ( sample instanceof Long ) {
+            return integral;
+        } else if ( sample instanceof Integer ) {
+            return (int) integral;
+        } else if ( sample instanceof Short ) {
+            return (short) integral;
+        } else if ( sample instanceof Byte ) {
+            return (byte) integral;
+        } else if ( sample instanceof java.sql.Timestamp ) {
+            return new java.sql.Timestamp(integral);
+        } else if ( sample instanceof java.sql.Date ) {
+            return new java.sql.Date(integral);
+        } else if ( sample instanceof Date ) {
+            return new Date(integral);
+        } else if ( sample instanceof LocalDate ) {
+            return LocalDate.ofEpochDay(integral);
+        } else if ( sample instanceof LocalDateTime ) {
+            return LocalDateTime.ofEpochSecond(integral, 0, ZoneOffset.UTC);
+        } else if ( sample instanceof Instant ) {
+            return Instant.ofEpochMilli(integral);
+        }
+        throw new RuntimeException("Tipo não suportado para particionamento: " + sample.getClass().getName()
+                + ". Use uma propriedade numérica ou de data.");
+    }
+
+}
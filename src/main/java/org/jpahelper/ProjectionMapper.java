@@ -0,0 +1,102 @@
+package org.jpahelper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Conversão das linhas de uma projeção (<code>Object[]</code>) em objetos de uma classe de retorno, através do
+ * construtor cujos parâmetros correspondem às colunas.
+ * <p>
+ * O construtor é localizado uma única vez por (entidade, classe de retorno, colunas) e invocado via
+ * {@link MethodHandle}, sem reflexão a cada linha.
+ */
+final class ProjectionMapper<C> {
+
+    private static final int MAX_MAPPERS = 1000;
+
+    private static final ConcurrentMap<List<Object>, ProjectionMapper<?>> cache = new ConcurrentHashMap<>();
+
+    private final Class<C> resultClass;
+
+    private final MethodHandle constructor;
+
+    private ProjectionMapper(Class<C> resultClass, MethodHandle constructor) {
+        this.resultClass = resultClass;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Obtem (via cache) o conversor para a classe de retorno
+     * @param entityClass Entidade consultada
+     * @param resultClass Classe de retorno
+     * @param columns Colunas da projeção
+     * @param columnTypes Tipos Java das colunas, na mesma ordem
+     * @throws RuntimeException se a classe não possuir construtor compatível com as colunas
+     */
+    @SuppressWarnings("unchecked")
+    static <C> ProjectionMapper<C> of( Class<?> entityClass, Class<C> resultClass, List<String> columns, List<Class<?>> columnTypes ) {
+        List<Object> key = Arrays.asList(entityClass, resultClass, new ArrayList<>(columns));
+        ProjectionMapper<C> mapper = (ProjectionMapper<C>) cache.get(key);
+        if ( mapper == null ) {
+            mapper = new ProjectionMapper<>(resultClass, findConstructor(resultClass, columns, columnTypes));
+            if ( cache.size() < MAX_MAPPERS ) {
+                cache.putIfAbsent(key, mapper);
+            }
+        }
+        return mapper;
+    }
+
+    private static MethodHandle findConstructor( Class<?> resultClass, List<String> columns, List<Class<?>> columnTypes ) {
+        for (Constructor<?> candidate : resultClass.getDeclaredConstructors()) {
+            if ( accepts(candidate.getParameterTypes(), columnTypes) ) {
+                try {
+                    candidate.setAccessible(true);
+                    return MethodHandles.lookup().unreflectConstructor(candidate)
+                            .asSpreader(Object[].class, columnTypes.size())
+                            .asType( MethodType.methodType(Object.class, Object[].class) );
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new RuntimeException("Construtor de " + resultClass.getName() + " inacessível: " + candidate, e);
+                }
+            }
+        }
+        throw new RuntimeException(resultClass.getName() + " não possui construtor compatível com as colunas " + columns
+                + " " + columnTypes);
+    }
+
+    private static boolean accepts( Class<?>[] parameterTypes, List<Class<?>> columnTypes ) {
+        if ( parameterTypes.length != columnTypes.size() ) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if ( ! wrap(parameterTypes[i]).isAssignableFrom( wrap(columnTypes.get(i)) ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap( Class<?> type ) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * Converte uma linha da projeção
+     * @param row Valores das colunas
+     * @return objeto da classe de retorno
+     */
+    C map( Object[] row ) {
+        try {
+            return resultClass.cast( (Object) constructor.invokeExact(row) );
+        } catch (Throwable e) {
+            throw new RuntimeException("Falha ao converter a linha " + Arrays.toString(row) + " em " + resultClass.getName(), e);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.jpahelper;
+
+import org.jpahelper.JpaCriteriaHelper.QueryOperation;
+
+/**
+ * Medição de uma operação do {@link JpaCriteriaHelper}
+ */
+public final class QueryEvent {
+
+    private final String fingerprint;
+
+    private final Class<?> entityClass;
+
+    private final QueryOperation operation;
+
+    private final long buildNanos;
+
+    private final long executionNanos;
+
+    private final long rows;
+
+    private final Throwable failure;
+
+    private final boolean cacheHit;
+
+    QueryEvent(String fingerprint, Class<?> entityClass, QueryOperation operation, long buildNanos, long executionNanos, long rows
+            , Throwable failure, boolean cacheHit) {
+        this.fingerprint    = fingerprint;
+        this.entityClass    = entityClass;
+        this.operation      = operation;
+        this.buildNanos     = buildNanos;
+        this.executionNanos = executionNanos;
+        this.rows           = rows;
+        this.failure        = failure;
+        this.cacheHit       = cacheHit;
+    }
+
+    /**
+     * @return identificação estável da forma da consulta (entidade, campos e operadores, sem os valores)
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public QueryOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return tempo de montagem da consulta (criteria e criação da query no EntityManager), em nanossegundos
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * @return tempo de execução da consulta no banco, em nanossegundos
+     */
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    /**
+     * @return número de registros retornados (consultas) ou afetados (update e delete)
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return exceção lançada pela operação, ou <b>null</b> se a operação foi concluída
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return <b>true</b> se o resultado veio do {@link QueryResultCache}, sem consulta ao banco
+     *         (o tempo de execução é o da busca no cache)
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + fingerprint + " build=" + buildNanos + "ns execution=" + executionNanos + "ns rows=" + rows
+                + (cacheHit ? " cache" : "") + (failure != null ? " failure=" + failure : "");
+    }
+
+}
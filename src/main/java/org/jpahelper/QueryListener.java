@@ -0,0 +1,14 @@
+package org.jpahelper;
+
+/**
+ * Recebe as medições de cada operação executada pelo {@link JpaCriteriaHelper}
+ * (registrado com {@link JpaCriteriaHelper#addQueryListener(QueryListener)}), inclusive das que falharam
+ * ({@link QueryEvent#getFailure()}) e das atendidas pelo {@link QueryResultCache} ({@link QueryEvent#isCacheHit()}).
+ * <p>
+ * É chamado na thread que executou a consulta; implementações devem ser rápidas, thread-safe e não lançar exceções.
+ */
+public interface QueryListener {
+
+    void onQuery(QueryEvent event);
+
+}
@@ -0,0 +1,146 @@
+package org.jpahelper;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.jpahelper.JpaCriteriaHelper.QueryOperation;
+
+/**
+ * Registro global dos {@link QueryListener} e cronômetro das operações.
+ * Sem listeners registrados, o cronômetro retornado é inativo e nenhuma medição é feita.
+ */
+final class QueryListeners {
+
+    private static final List<QueryListener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final Timer INACTIVE = new Timer(null, null, null);
+
+    private QueryListeners() {
+    }
+
+    static void add( QueryListener listener ) {
+        listeners.add(listener);
+    }
+
+    static void remove( QueryListener listener ) {
+        listeners.remove(listener);
+    }
+
+    static boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    /**
+     * Inicia a medição de uma operação do helper (a forma da consulta só é calculada se houver listeners)
+     */
+    static Timer start( JpaCriteriaHelper<?> helper, QueryOperation operation ) {
+        if ( listeners.isEmpty() ) {
+            return INACTIVE;
+        }
+        return new Timer(helper.getFingerprint(), helper.getEntityClass(), operation);
+    }
+
+    /**
+     * Inicia a medição de uma operação com forma de consulta já conhecida
+     */
+    static Timer start( String fingerprint, Class<?> entityClass, QueryOperation operation ) {
+        if ( listeners.isEmpty() ) {
+            return INACTIVE;
+        }
+        return new Timer(fingerprint, entityClass, operation);
+    }
+
+    static final class Timer {
+
+        private final String fingerprint;
+
+        private final Class<?> entityClass;
+
+        private final QueryOperation operation;
+
+        private final long start;
+
+        private long built;
+
+        private Timer(String fingerprint, Class<?> entityClass, QueryOperation operation) {
+            this.fingerprint = fingerprint;
+            this.entityClass = entityClass;
+            this.operation   = operation;
+            this.start       = operation == null ? 0 : System.nanoTime();
+        }
+
+        /**
+         * Marca o fim da montagem da consulta
+         */
+        void built() {
+            if ( operation != null ) {
+                built = System.nanoTime();
+            }
+        }
+
+        /**
+         * Executa a consulta, marcando o fim da execução e notificando os listeners também em caso de falha
+         * @param execution Execução da consulta (chamada após {@link #built()})
+         * @return resultado da execução
+         */
+        <R> R execute( Supplier<R> execution ) {
+            R result;
+            try {
+                result = execution.get();
+            } catch (RuntimeException | Error e) {
+                failed(e);
+                throw e;
+            }
+            return finished(result);
+        }
+
+        /**
+         * Marca o fim da execução e notifica os listeners
+         * @param result Resultado da operação (lista, número de registros afetados ou valor único)
+         * @return o próprio resultado
+         */
+        <R> R finished( R result ) {
+            notify(getRows(result), null, false);
+            return result;
+        }
+
+        /**
+         * Notifica os listeners da falha da operação
+         * @param failure Exceção lançada
+         */
+        void failed( Throwable failure ) {
+            notify(0, failure, false);
+        }
+
+        /**
+         * Notifica os listeners de um resultado obtido do {@link QueryResultCache}, sem consulta ao banco
+         * @param result Resultado armazenado
+         * @return o próprio resultado
+         */
+        <R> R cacheHit( R result ) {
+            notify(getRows(result), null, true);
+            return result;
+        }
+
+        private long getRows( Object result ) {
+            return result instanceof List ? ((List<?>) result).size()
+                    : result instanceof Integer && ( operation == QueryOperation.EXECUTE || operation == QueryOperation.DELETE ) ? (Integer) result
+                    : result instanceof Boolean ? ((Boolean) result ? 1 : 0)
+                    : result == null ? 0 : 1;
+        }
+
+        private void notify( long rows, Throwable failure, boolean cacheHit ) {
+            if ( operation != null ) {
+                long end = System.nanoTime();
+                long buildEnd = built == 0 ? start : built;
+                QueryEvent event = new QueryEvent(fingerprint, entityClass, operation, buildEnd - start, end - buildEnd, rows
+                        , failure, cacheHit);
+                for (QueryListener listener : listeners) {
+                    listener.onQuery(event);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.jpahelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jpahelper.JpaCriteriaHelper.QueryOperation;
+
+/**
+ * {@link QueryListener} que acumula em memória, por forma de consulta e operação, o número de execuções,
+ * os registros retornados e histogramas dos tempos de montagem e de execução.
+ * <p>
+ * Os histogramas usam faixas em potências de 2 (em nanossegundos), portanto os percentis são aproximados
+ * pelo limite superior da faixa.
+ */
+public class QueryMetrics implements QueryListener {
+
+    private final ConcurrentMap<List<Object>, ShapeMetrics> shapes = new ConcurrentHashMap<>();
+
+    @Override
+    public void onQuery(QueryEvent event) {
+        List<Object> key = Arrays.asList(event.getFingerprint(), event.getOperation());
+        ShapeMetrics metrics = shapes.get(key);
+        if ( metrics == null ) {
+            metrics = shapes.computeIfAbsent(key, k -> new ShapeMetrics(event));
+        }
+        metrics.record(event);
+    }
+
+    /**
+     * @return métricas acumuladas de cada forma de consulta
+     */
+    public List<ShapeMetrics> getShapes() {
+        return new ArrayList<>(shapes.values());
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    /**
+     * Métricas acumuladas de uma forma de consulta e operação
+     */
+    public static class ShapeMetrics {
+
+        private final String fingerprint;
+
+        private final Class<?> entityClass;
+
+        private final QueryOperation operation;
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder cacheHits = new LongAdder();
+
+        private final Histogram buildTime = new Histogram();
+
+        private final Histogram executionTime = new Histogram();
+
+        private ShapeMetrics(QueryEvent event) {
+            this.fingerprint = event.getFingerprint();
+            this.entityClass = event.getEntityClass();
+            this.operation   = event.getOperation();
+        }
+
+        private void record(QueryEvent event) {
+            rows.add(event.getRows());
+            // resultados do cache não entram nos tempos, que medem as consultas ao banco
+            if ( event.isCacheHit() ) {
+                cacheHits.increment();
+                return;
+            }
+            if ( event.getFailure() != null ) {
+                failures.increment();
+            }
+            buildTime.record(event.getBuildNanos());
+            executionTime.record(event.getExecutionNanos());
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public Class<?> getEntityClass() {
+            return entityClass;
+        }
+
+        public QueryOperation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return número de consultas ao banco (incluindo as que falharam)
+         */
+        public long getCount() {
+            return executionTime.getCount();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        public long getTotalRows() {
+            return rows.sum();
+        }
+
+        public Histogram getBuildTime() {
+            return buildTime;
+        }
+
+        public Histogram getExecutionTime() {
+            return executionTime;
+        }
+    }
+
+    /**
+     * Histograma de tempos, em nanossegundos, com faixas em potências de 2
+     */
+    public static class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder total = new LongAdder();
+
+        private void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            count.increment();
+            total.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return total.sum();
+        }
+
+        public double getMeanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0d : (double) total.sum() / n;
+        }
+
+        /**
+         * @param percentile Percentil desejado (entre 0 e 100)
+         * @return limite superior da faixa que contém o percentil, em nanossegundos
+         */
+        public long getPercentileNanos(double percentile) {
+            long n = count.sum();
+            if ( n == 0 ) {
+                return 0;
+            }
+            long target = (long) Math.ceil(n * percentile / 100d);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if ( seen >= Math.max(target, 1) ) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package org.jpahelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Cache de resultados de consultas do {@link JpaCriteriaHelper}, ativado por consulta com
+ * {@link JpaCriteriaHelper#cached(QueryResultCache)}.
+ * <p>
+ * Possui tamanho máximo (os registros menos usados recentemente são descartados), tempo de expiração e estatísticas
+ * de acerto. As entradas de uma entidade são invalidadas automaticamente quando um update ({@link JpaCriteriaHelper#execute()})
+ * ou delete ({@link JpaCriteriaHelper#delete()}) é executado pelo helper para a mesma entidade. Se a alteração foi
+ * feita dentro de uma transação, o cache da entidade deixa de ser usado até que a transação termine, e é invalidado
+ * novamente em seguida, para que leituras concorrentes não guardem os dados anteriores ao commit.
+ * <p>
+ * O término da transação é verificado pelo estado da transação do EntityManager ({@link EntityManager#getTransaction()}).
+ * Com transações JTA ou EntityManagers compartilhados entre threads, esse estado não é visível a outras threads:
+ * nesse caso, chame {@link #invalidate(Class)} após o commit (por exemplo em uma sincronização da transação), ou
+ * as alterações só serão refletidas quando as entradas expirarem.
+ * <p>
+ * As entidades armazenadas são desanexadas do EntityManager que as carregou, e as mesmas instâncias são retornadas a
+ * todas as chamadas: devem ser tratadas como somente leitura. Indicado para tabelas de referência pequenas e pouco
+ * alteradas.
+ */
+public class QueryResultCache {
+
+    private static final Set<QueryResultCache> caches = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<QueryResultCache, Boolean>()) );
+
+    /** Entidades alteradas pelo helper em transações ainda não finalizadas, por EntityManager */
+    private static final Map<EntityManager, Set<Class<?>>> pendingWrites = new WeakHashMap<>();
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Object, CacheEntry> entries;
+
+    private long invalidations;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private static class CacheEntry {
+        private final Class<?> entityClass;
+        private final Object value;
+        private final long expiresAt;
+
+        private CacheEntry(Class<?> entityClass, Object value, long expiresAt) {
+            this.entityClass = entityClass;
+            this.value       = value;
+            this.expiresAt   = expiresAt;
+        }
+    }
+
+    /**
+     * @param maxEntries Número máximo de consultas mantidas
+     * @param ttl Tempo de expiração de cada entrada
+     * @param ttlUnit Unidade do tempo de expiração
+     */
+    public QueryResultCache(int maxEntries, long ttl, TimeUnit ttlUnit) {
+        if ( maxEntries < 1 ) {
+            throw new RuntimeException("O tamanho máximo do cache deve ser maior que zero.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos   = ttlUnit.toNanos(ttl);
+        this.entries    = new LinkedHashMap<Object, CacheEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+                if ( size() > QueryResultCache.this.maxEntries ) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        caches.add(this);
+    }
+
+    /**
+     * Obtem o valor do cache, ou executa a consulta e armazena seu resultado
+     */
+    @SuppressWarnings("unchecked")
+    <V> V get( Object key, Class<?> entityClass, Supplier<V> loader ) {
+        if ( hasPendingWrite(entityClass) ) {
+            // dados ainda não confirmados: nem lê nem grava no cache
+            return loader.get();
+        }
+
+        long generation;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if ( entry != null && entry.expiresAt - System.nanoTime() > 0 ) {
+                hitCount++;
+                return (V) entry.value;
+            }
+            if ( entry != null ) {
+                entries.remove(key);
+            }
+            missCount++;
+            generation = invalidations;
+        }
+
+        V value = loader.get();
+
+        synchronized (this) {
+            // descarta o resultado se houve invalidação durante a consulta
+            if ( generation == invalidations ) {
+                entries.put(key, new CacheEntry(entityClass, value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove as entradas de consultas à entidade informada (e às suas superclasses e subclasses)
+     * @param entityClass Entidade alterada
+     */
+    public synchronized void invalidate( Class<?> entityClass ) {
+        invalidations++;
+        for (Iterator<CacheEntry> it = entries.values().iterator(); it.hasNext(); ) {
+            Class<?> cached = it.next().entityClass;
+            if ( cached.isAssignableFrom(entityClass) || entityClass.isAssignableFrom(cached) ) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalida a entidade em todos os caches existentes
+     */
+    static void invalidateAll( Class<?> entityClass ) {
+        synchronized (caches) {
+            for (QueryResultCache cache : caches) {
+                cache.invalidate(entityClass);
+            }
+        }
+    }
+
+    /**
+     * Invalida a entidade alterada pelo EntityManager informado em todos os caches existentes, e novamente após o
+     * término da transação em andamento (se houver)
+     */
+    static void invalidateAll( Class<?> entityClass, EntityManager em ) {
+        if ( inTransaction(em) ) {
+            synchronized (pendingWrites) {
+                pendingWrites.computeIfAbsent(em, k -> new HashSet<>()).add(entityClass);
+            }
+        }
+        invalidateAll(entityClass);
+    }
+
+    /**
+     * Verifica se a entidade (ou superclasse/subclasse) foi alterada em uma transação ainda em andamento. As alterações
+     * de transações já finalizadas são invalidadas novamente e descartadas.
+     */
+    static boolean hasPendingWrite( Class<?> entityClass ) {
+        boolean pending = false;
+        List<Class<?>> finished = new ArrayList<>();
+        synchronized (pendingWrites) {
+            if ( pendingWrites.isEmpty() ) {
+                return false;
+            }
+            for (Iterator<Entry<EntityManager, Set<Class<?>>>> it = pendingWrites.entrySet().iterator(); it.hasNext(); ) {
+                Entry<EntityManager, Set<Class<?>>> write = it.next();
+                if ( inTransaction(write.getKey()) ) {
+                    for (Class<?> written : write.getValue()) {
+                        pending |= written.isAssignableFrom(entityClass) || entityClass.isAssignableFrom(written);
+                    }
+                } else {
+                    finished.addAll(write.getValue());
+                    it.remove();
+                }
+            }
+        }
+        for (Class<?> written : finished) {
+            invalidateAll(written);
+        }
+        return pending;
+    }
+
+    private static boolean inTransaction( EntityManager em ) {
+        if ( ! em.isOpen() ) {
+            return false;
+        }
+        try {
+            return em.getTransaction().isActive();
+        } catch (IllegalStateException e) {
+            // JTA: getTransaction() não é permitido
+            return em.isJoinedToTransaction();
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0d : (double) hitCount / requests;
+    }
+
+}
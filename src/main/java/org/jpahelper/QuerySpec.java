@@ -0,0 +1,74 @@
+package org.jpahelper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Especificação imutável de uma consulta, criada com {@link JpaCriteriaHelper#toSpec()}.
+ * <p>
+ * Pode ser montada uma única vez (por exemplo em um campo estático, a partir de {@link JpaCriteriaHelper#spec(Class)}),
+ * compartilhada entre threads e executada com qualquer EntityManager. A consulta é compilada ({@link CompiledQuery})
+ * na primeira execução de cada EntityManagerFactory; as execuções seguintes apenas associam os valores dos parâmetros.
+ * <pre>
+ * private static final QuerySpec&lt;MyEntity&gt; BY_NAME = JpaCriteriaHelper.spec(MyEntity.class)
+ *         .where("name", JpaCriteriaHelper.param("name"))
+ *         .orderBy("id")
+ *         .toSpec();
+ *
+ * List&lt;MyEntity&gt; result = BY_NAME.with(em).bind("name", name).getResults();
+ * </pre>
+ *
+ * @param <T> Entidade consultada
+ */
+public final class QuerySpec<T> {
+
+    private final JpaCriteriaHelper<T> template;
+
+    private final ConcurrentMap<EntityManagerFactory, CompiledQuery<T>> compiledQueries = new ConcurrentHashMap<>();
+
+    QuerySpec(JpaCriteriaHelper<T> template) {
+        this.template = template;
+    }
+
+    /**
+     * Inicia uma execução da consulta no EntityManager informado
+     * @param em EntityManager
+     * @return objeto de execução, onde os parâmetros são informados
+     */
+    public CompiledQuery<T>.Execution with( EntityManager em ) {
+        return compiled(em).with(em);
+    }
+
+    /**
+     * Consulta compilada para a EntityManagerFactory do EntityManager informado
+     * @param em EntityManager
+     * @return consulta compilada
+     */
+    public CompiledQuery<T> compiled( EntityManager em ) {
+        EntityManagerFactory emf = em.getEntityManagerFactory();
+        CompiledQuery<T> compiledQuery = compiledQueries.get(emf);
+        if ( compiledQuery == null ) {
+            compiledQuery = template.bind(em).compile();
+            CompiledQuery<T> previous = compiledQueries.putIfAbsent(emf, compiledQuery);
+            if ( previous != null ) {
+                compiledQuery = previous;
+            }
+        }
+        return compiledQuery;
+    }
+
+    /**
+     * Cria um objeto de consulta mutável, associado ao EntityManager informado, com a forma desta especificação,
+     * para as operações não disponíveis em {@link CompiledQuery} (paginação com total, stream, projeções, ...).
+     * Disponível apenas para especificações sem parâmetros ({@link JpaCriteriaHelper#param(String)}).
+     * @param em EntityManager
+     * @return objeto de consulta independente
+     */
+    public JpaCriteriaHelper<T> toHelper( EntityManager em ) {
+        return template.bind(em);
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.jpahelper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado de {@link JpaCriteriaHelper#summarize(Aggregate...)}: o valor de cada agregação, pelo seu apelido.
+ * <p>
+ * Contagens nunca são nulas; as demais agregações são <b>null</b> quando nenhum registro atende à consulta.
+ */
+public final class Summary {
+
+    private final Map<String, Object> values;
+
+    Summary(Map<String, Object> values) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    /**
+     * @param alias Apelido da agregação (ver {@link Aggregate#getAlias()})
+     * @return valor da agregação
+     * @throws RuntimeException se a agregação não fez parte da consulta
+     */
+    public Object get( String alias ) {
+        if ( ! values.containsKey(alias) ) {
+            throw new RuntimeException("Agregação não consultada: " + alias + ". Disponíveis: " + values.keySet());
+        }
+        return values.get(alias);
+    }
+
+    /**
+     * @param aggregate Agregação consultada
+     * @return valor da agregação
+     */
+    public Object get( Aggregate aggregate ) {
+        return get(aggregate.getAlias());
+    }
+
+    /**
+     * @param alias Apelido da agregação
+     * @param resultClass Tipo esperado do valor
+     * @return valor da agregação
+     * @throws ClassCastException se o valor não for do tipo informado
+     */
+    public <V> V get( String alias, Class<V> resultClass ) {
+        return resultClass.cast( get(alias) );
+    }
+
+    /**
+     * @param alias Apelido da agregação numérica
+     * @return valor da agregação convertido em Long, ou <b>null</b>
+     */
+    public Long getLong( String alias ) {
+        Number value = (Number) get(alias);
+        return value == null ? null : value.longValue();
+    }
+
+    /**
+     * @param alias Apelido da agregação numérica
+     * @return valor da agregação convertido em Double, ou <b>null</b>
+     */
+    public Double getDouble( String alias ) {
+        Number value = (Number) get(alias);
+        return value == null ? null : value.doubleValue();
+    }
+
+    /**
+     * @return valores de todas as agregações, na ordem em que foram informadas
+     */
+    public Map<String, Object> asMap() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+
+}
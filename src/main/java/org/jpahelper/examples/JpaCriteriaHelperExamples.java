@@ -1,14 +1,28 @@
 package org.jpahelper.examples;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.jpahelper.Aggregate;
+import org.jpahelper.CompiledQuery;
 import org.jpahelper.JpaCriteriaHelper;
+import org.jpahelper.Page;
+import org.jpahelper.PaginationI;
+import org.jpahelper.QuerySpec;
+import org.jpahelper.Summary;
 import org.jpahelper.JpaCriteriaHelper.ComparatorOperator;
+import org.jpahelper.JpaCriteriaHelper.OrderDirection;
 
 public class JpaCriteriaHelperExamples {
 
+    private static final QuerySpec<MyEntity> BY_NAME = JpaCriteriaHelper
+            .spec(MyEntity.class)
+            .where("name", JpaCriteriaHelper.param("name"))
+            .orderBy("id")
+            .toSpec();
+
     @PersistenceContext
     private EntityManager em;
     
@@ -65,4 +79,81 @@ public class JpaCriteriaHelperExamples {
                 .execute();
     }
     
+    public List<MyEntity> getByNameCompiled( String name ) {
+        CompiledQuery<MyEntity> query = JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .where("name", JpaCriteriaHelper.param("name"))
+                .orderBy("id")
+                .compile();
+
+        return query.with(em)
+                .bind("name", name)
+                .getResults();
+    }
+    
+    public List<MyEntity> getByNameSpec( String name ) {
+        return BY_NAME.with(em)
+                .bind("name", name)
+                .getResults();
+    }
+    
+    public List<MyEntity> getNextPageByName( String cursor ) {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .orderBy("name")
+                .orderBy("id")
+                .setPageSize(20)
+                .seekCursor(cursor)
+                .getResults();
+    }
+    
+    public long sumAgesOfAllEntities() {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .stream(1000)
+                .mapToLong(MyEntity::getAge)
+                .sum();
+    }
+    
+    public Page<MyEntity> getPageWithMatchingName( String name, PaginationI pagination ) {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .where("name", ComparatorOperator.LIKE_IGNORE_CASE, name)
+                .orderBy("name")
+                .pagination(pagination)
+                .getPage();
+    }
+    
+    public List<MyEntity> getByNamePrefix( String prefix ) {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .where("name", ComparatorOperator.STARTS_WITH_IGNORE_CASE, prefix)
+                .orderBy("name")
+                .getResults();
+    }
+    
+    public List<Map<String, Object>> getAgeStatisticsByName() {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .groupBy("name")
+                .having(Aggregate.count(), ComparatorOperator.GREATER_THAN, 1L)
+                .orderBy(Aggregate.avg("age"), OrderDirection.DESC)
+                .getGroupResults(Aggregate.count(), Aggregate.min("age"), Aggregate.max("age"), Aggregate.avg("age"));
+    }
+    
+    public Summary getAgeSummary( String name ) {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .where("name", ComparatorOperator.LIKE_IGNORE_CASE, name)
+                .summarize(Aggregate.count(), Aggregate.sum("age"), Aggregate.min("age"), Aggregate.max("age"));
+    }
+    
+    public long countByNameCached( String name ) {
+        return JpaCriteriaHelper
+                .select(em, MyEntity.class)
+                .where("name", name)
+                .cacheable("myEntityCounts")
+                .count();
+    }
+    
 }
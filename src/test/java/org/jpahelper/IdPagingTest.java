@@ -0,0 +1,108 @@
+package org.jpahelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.PersistenceUnitUtil;
+
+import org.jpahelper.model.Customer;
+import org.jpahelper.model.Item;
+import org.junit.Test;
+
+/**
+ * Paginação em duas etapas (página de ids e, em seguida, as entidades com as coleções) usada quando a consulta
+ * paginada faz fetch de coleções
+ */
+public class IdPagingTest extends JpaTestSupport {
+
+    @Test
+    public void pageWithCollectionFetchKeepsOrderAndCollections() {
+        List<Customer> page = JpaCriteriaHelper.select(em, Customer.class)
+                .fetch("items", Item.class)
+                .orderBy("name").desc()
+                .setPageSize(4)
+                .page(2)
+                .getResults();
+
+        assertEquals(Arrays.asList(26L, 25L, 24L, 23L), ids(page));
+        assertCollectionsLoaded(page);
+    }
+
+    @Test
+    public void lastPageMayBePartial() {
+        List<Customer> page = JpaCriteriaHelper.select(em, Customer.class)
+                .fetch("items", Item.class)
+                .orderBy("id")
+                .setPageSize(7)
+                .page(5)
+                .getResults();
+
+        assertEquals(Arrays.asList(29L, 30L), ids(page));
+        assertCollectionsLoaded(page);
+    }
+
+    @Test
+    public void pageBeyondTheEndIsEmpty() {
+        List<Customer> page = JpaCriteriaHelper.select(em, Customer.class)
+                .fetch("items", Item.class)
+                .orderBy("id")
+                .setPageSize(10)
+                .page(4)
+                .getResults();
+
+        assertTrue(page.isEmpty());
+    }
+
+    @Test
+    public void compiledQueryPagesByIds() {
+        CompiledQuery<Customer> query = JpaCriteriaHelper.select(em, Customer.class)
+                .fetch("items", Item.class)
+                .where("age", JpaCriteriaHelper.param("age"))
+                .orderBy("id")
+                .compile();
+
+        // idade 1: clientes 1, 6, 11, 16, 21 e 26
+        List<Customer> page = query.with(em).bind("age", 1).setPageSize(4).page(2).getResults();
+
+        assertEquals(Arrays.asList(21L, 26L), ids(page));
+        assertCollectionsLoaded(page);
+
+        List<Customer> firstPage = query.with(em).bind("age", 1).setPageSize(4).page(1).getResults();
+
+        assertEquals(Arrays.asList(1L, 6L, 11L, 16L), ids(firstPage));
+    }
+
+    @Test
+    public void cursorPageWithCollectionFetch() {
+        List<Customer> first = JpaCriteriaHelper.select(em, Customer.class).orderBy("id").setPageSize(5).page(1).getResults();
+        String cursor = JpaCriteriaHelper.select(em, Customer.class).orderBy("id").getCursor(first);
+        em.clear();
+
+        List<Customer> page = JpaCriteriaHelper.select(em, Customer.class)
+                .fetch("items", Item.class)
+                .orderBy("id")
+                .setPageSize(5)
+                .seekCursor(cursor)
+                .getResults();
+
+        assertEquals(Arrays.asList(6L, 7L, 8L, 9L, 10L), ids(page));
+        assertCollectionsLoaded(page);
+    }
+
+    private void assertCollectionsLoaded( List<Customer> customers ) {
+        PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+        for (Customer customer : customers) {
+            assertTrue( util.isLoaded(customer, "items") );
+            assertEquals(ITEMS_PER_CUSTOMER, customer.getItems().size());
+        }
+    }
+
+    private static List<Long> ids( List<Customer> customers ) {
+        return customers.stream().map(Customer::getId).collect(Collectors.toList());
+    }
+
+}
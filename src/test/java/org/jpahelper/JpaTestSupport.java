@@ -0,0 +1,84 @@
+package org.jpahelper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.jpahelper.model.Customer;
+import org.jpahelper.model.Item;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+/**
+ * Base dos testes com banco H2 em memória: recria a massa de dados antes de cada teste e registra as consultas
+ * executadas pelo helper.
+ * <p>
+ * Massa: 30 clientes (ids 1 a 30, nomes <code>customer01</code> a <code>customer30</code>, idade <code>id % 5</code>,
+ * criados no mesmo milissegundo com <code>id</code> microssegundos de diferença), cada um com 3 itens.
+ */
+public abstract class JpaTestSupport {
+
+    protected static final int CUSTOMERS = 30;
+
+    protected static final int ITEMS_PER_CUSTOMER = 3;
+
+    protected static EntityManagerFactory emf;
+
+    protected EntityManager em;
+
+    /** Operações executadas no banco (ou atendidas pelo cache) durante o teste */
+    protected final List<QueryEvent> events = new ArrayList<>();
+
+    private final QueryListener listener = events::add;
+
+    @BeforeClass
+    public static void createFactory() {
+        emf = Persistence.createEntityManagerFactory("test");
+    }
+
+    @AfterClass
+    public static void closeFactory() {
+        emf.close();
+    }
+
+    @Before
+    public void populate() {
+        EntityManager setup = emf.createEntityManager();
+        try {
+            setup.getTransaction().begin();
+            setup.createQuery("delete from Item").executeUpdate();
+            setup.createQuery("delete from Customer").executeUpdate();
+            for (long id = 1; id <= CUSTOMERS; id++) {
+                Timestamp createdAt = new Timestamp(1_700_000_000_000L);
+                createdAt.setNanos((int) id * 1000);
+                Customer customer = new Customer(id, String.format("customer%02d", id), (int) (id % 5), createdAt);
+                setup.persist(customer);
+                for (long i = 0; i < ITEMS_PER_CUSTOMER; i++) {
+                    setup.persist( new Item(id * 10 + i, "item" + i, customer) );
+                }
+            }
+            setup.getTransaction().commit();
+        } finally {
+            setup.close();
+        }
+
+        em = emf.createEntityManager();
+        JpaCriteriaHelper.addQueryListener(listener);
+    }
+
+    @After
+    public void close() {
+        JpaCriteriaHelper.removeQueryListener(listener);
+        if ( em.getTransaction().isActive() ) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.jpahelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.jpahelper.model.Customer;
+import org.junit.Test;
+
+/**
+ * Cursor opaco da paginação por chave ({@link KeysetCursor}) e paginação com {@link JpaCriteriaHelper#seekCursor(String)}
+ */
+public class KeysetCursorTest extends JpaTestSupport {
+
+    @Test
+    public void valuesSurviveTheRoundTrip() {
+        List<Object> keys = Arrays.asList("texto", 1, 2L, (short) 3, (byte) 4, 5.5d, 6.5f, new BigDecimal("7.10")
+                , new BigInteger("80000000000000000000"), true, 'x', new Date(1_700_000_000_123L), LocalDate.of(2024, 2, 29)
+                , LocalDateTime.of(2024, 2, 29, 10, 11, 12, 13), Instant.ofEpochSecond(1_700_000_000L, 14), UUID.randomUUID());
+
+        List<Object> decoded = KeysetCursor.decode( KeysetCursor.encode(keys) );
+
+        assertEquals(keys, decoded);
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(keys.get(i).getClass(), decoded.get(i).getClass());
+        }
+    }
+
+    @Test
+    public void timestampKeepsNanoseconds() {
+        Timestamp timestamp = Timestamp.valueOf("2024-01-02 03:04:05.123456789");
+
+        Object decoded = KeysetCursor.decode( KeysetCursor.encode(Arrays.asList(timestamp)) ).get(0);
+
+        assertEquals(Timestamp.class, decoded.getClass());
+        assertEquals(timestamp, decoded);
+        assertEquals(123456789, ((Timestamp) decoded).getNanos());
+    }
+
+    @Test
+    public void invalidCursorIsRejected() {
+        try {
+            KeysetCursor.decode("nao-e-um-cursor");
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Cursor de paginação inválido: nao-e-um-cursor", e.getMessage());
+        }
+    }
+
+    @Test
+    public void cursorPagesVisitEveryRowOnceInOrder() {
+        List<Long> expected = ids( JpaCriteriaHelper.select(em, Customer.class).orderBy("age").orderBy("id").getResults() );
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            JpaCriteriaHelper<Customer> query = JpaCriteriaHelper.select(em, Customer.class).orderBy("age").orderBy("id").setPageSize(7);
+            List<Customer> page = cursor == null ? query.page(1).getResults() : query.seekCursor(cursor).getResults();
+            visited.addAll( ids(page) );
+            cursor = query.getCursor(page);
+        } while ( cursor != null );
+
+        assertEquals(expected, visited);
+        assertEquals(CUSTOMERS, new HashSet<>(visited).size());
+    }
+
+    @Test
+    public void timestampCursorDoesNotRepeatRows() {
+        // os registros diferem apenas nos microssegundos
+        List<Customer> first = JpaCriteriaHelper.select(em, Customer.class).orderBy("createdAt").setPageSize(10).page(1).getResults();
+        String cursor = JpaCriteriaHelper.select(em, Customer.class).orderBy("createdAt").getCursor(first);
+
+        List<Customer> second = JpaCriteriaHelper.select(em, Customer.class).orderBy("createdAt").setPageSize(10).seekCursor(cursor).getResults();
+
+        assertEquals(Long.valueOf(11), second.get(0).getId());
+        assertEquals(10, second.size());
+    }
+
+    @Test
+    public void emptyPageHasNoCursor() {
+        assertNull( JpaCriteriaHelper.select(em, Customer.class).orderBy("id").getCursor(new ArrayList<>()) );
+    }
+
+    private static List<Long> ids( List<Customer> customers ) {
+        return customers.stream().map(Customer::getId).collect(Collectors.toList());
+    }
+
+}
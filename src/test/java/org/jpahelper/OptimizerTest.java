@@ -0,0 +1,90 @@
+package org.jpahelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jpahelper.JpaCriteriaHelper.ComparatorOperator;
+import org.jpahelper.model.Customer;
+import org.junit.Test;
+
+/**
+ * Reescritas do WHERE feitas em memória antes da consulta (ver {@link JpaCriteriaHelper#optimize})
+ */
+public class OptimizerTest extends JpaTestSupport {
+
+    @Test
+    public void contradictoryEqualitiesDoNotQueryTheDatabase() {
+        List<Customer> results = JpaCriteriaHelper.select(em, Customer.class).where("age", 1).and("age", 2).getResults();
+
+        assertTrue(results.isEmpty());
+        assertEquals(0, JpaCriteriaHelper.select(em, Customer.class).where("age", 1).and("age", 2).count());
+        assertFalse(JpaCriteriaHelper.select(em, Customer.class).where("age", 1).and("age", 2).exists());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void emptyInDoesNotQueryTheDatabase() {
+        List<Customer> results = JpaCriteriaHelper.select(em, Customer.class)
+                .where("id", ComparatorOperator.IN, Collections.emptyList()).getResults();
+
+        assertTrue(results.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void textEqualitiesAreLeftToTheDatabase() {
+        // a igualdade de textos depende da collation do banco: não pode ser decidida em memória
+        long count = JpaCriteriaHelper.select(em, Customer.class).where("name", "customer01").and("name", "CUSTOMER01").count();
+
+        assertEquals(0, count);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void likeWithoutWildcardsIsKeptAsLike() {
+        List<Customer> results = JpaCriteriaHelper.select(em, Customer.class)
+                .where("name", ComparatorOperator.LIKE, "customer01").getResults();
+
+        assertEquals(1, results.size());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void orEqualitiesMatchTheSameRowsAsIn() {
+        List<Long> merged = ids( JpaCriteriaHelper.select(em, Customer.class)
+                .where("age", 1).or("age", 2).or("age", ComparatorOperator.IN, Arrays.asList(2, 3)).orderBy("id").getResults() );
+        List<Long> in = ids( JpaCriteriaHelper.select(em, Customer.class)
+                .where("age", ComparatorOperator.IN, Arrays.asList(1, 2, 3)).orderBy("id").getResults() );
+
+        assertEquals(18, merged.size());
+        assertEquals(in, merged);
+    }
+
+    @Test
+    public void contradictoryGroupIsDroppedFromOr() {
+        List<Long> ids = ids( JpaCriteriaHelper.select(em, Customer.class)
+                .andGroup(group -> group.where("age", 1).and("age", 2))
+                .orGroup(group -> group.where("id", 3L))
+                .getResults() );
+
+        assertEquals(Arrays.asList(3L), ids);
+    }
+
+    @Test
+    public void duplicatedEntriesReturnTheSameRows() {
+        long count = JpaCriteriaHelper.select(em, Customer.class).where("age", 4).and("age", 4).count();
+
+        assertEquals(6, count);
+    }
+
+    private static List<Long> ids( List<Customer> customers ) {
+        return customers.stream().map(Customer::getId).collect(Collectors.toList());
+    }
+
+}
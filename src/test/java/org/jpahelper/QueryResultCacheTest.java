@@ -0,0 +1,101 @@
+package org.jpahelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jpahelper.JpaCriteriaHelper.QueryOperation;
+import org.jpahelper.model.Customer;
+import org.junit.Test;
+
+/**
+ * Cache de resultados ({@link JpaCriteriaHelper#cached(QueryResultCache)}): acertos, entidades gerenciadas do
+ * EntityManager da consulta e invalidação pelos updates do helper
+ */
+public class QueryResultCacheTest extends JpaTestSupport {
+
+    private final QueryResultCache cache = new QueryResultCache(100, 1, TimeUnit.MINUTES);
+
+    @Test
+    public void secondCallIsServedFromCache() {
+        List<Customer> first = byId(1L);
+        List<Customer> second = byId(1L);
+
+        assertSame(first.get(0), second.get(0));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        assertEquals(2, events.size());
+        assertFalse(events.get(0).isCacheHit());
+        assertTrue(events.get(1).isCacheHit());
+        assertEquals(QueryOperation.GET_RESULTS, events.get(1).getOperation());
+        assertEquals(1, events.get(1).getRows());
+    }
+
+    @Test
+    public void cacheMissDoesNotDetachManagedEntities() {
+        Customer managed = em.find(Customer.class, 1L);
+        managed.setName("alterado");
+
+        Customer cached = byId(1L).get(0);
+
+        assertNotSame(managed, cached);
+        assertTrue(em.contains(managed));
+        assertFalse(em.contains(cached));
+        assertEquals("alterado", managed.getName());
+    }
+
+    @Test
+    public void updateInTransactionInvalidatesCache() {
+        assertEquals("customer01", byId(1L).get(0).getName());
+
+        em.getTransaction().begin();
+        JpaCriteriaHelper.update(em, Customer.class).set("name", "renomeado").where("id", 1L).execute();
+
+        // dentro da transação, a consulta enxerga a alteração ainda não confirmada
+        assertEquals("renomeado", byId(1L).get(0).getName());
+        assertEquals(0, cache.size());
+
+        em.getTransaction().commit();
+        em.clear();
+
+        assertEquals("renomeado", byId(1L).get(0).getName());
+        assertEquals("renomeado", byId(1L).get(0).getName());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void rolledBackUpdateIsNotCached() {
+        byId(1L);
+
+        em.getTransaction().begin();
+        JpaCriteriaHelper.update(em, Customer.class).set("name", "renomeado").where("id", 1L).execute();
+        byId(1L);
+        em.getTransaction().rollback();
+        em.clear();
+
+        assertEquals("customer01", byId(1L).get(0).getName());
+    }
+
+    @Test
+    public void countCacheHitIsReported() {
+        long first = JpaCriteriaHelper.select(em, Customer.class).where("age", 0).cached(cache).count();
+        long second = JpaCriteriaHelper.select(em, Customer.class).where("age", 0).cached(cache).count();
+
+        assertEquals(CUSTOMERS / 5, first);
+        assertEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertTrue(events.get(events.size() - 1).isCacheHit());
+        assertEquals(QueryOperation.COUNT, events.get(events.size() - 1).getOperation());
+    }
+
+    private List<Customer> byId( Long id ) {
+        return JpaCriteriaHelper.select(em, Customer.class).where("id", id).cached(cache).getResults();
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.jpahelper.model;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+
+@Entity
+public class Customer {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    private Integer age;
+
+    private Timestamp createdAt;
+
+    @OneToMany(mappedBy = "customer")
+    @OrderBy("id")
+    private List<Item> items = new ArrayList<>();
+
+    protected Customer() {
+    }
+
+    public Customer(Long id, String name, Integer age, Timestamp createdAt) {
+        this.id        = id;
+        this.name      = name;
+        this.age       = age;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.jpahelper.model;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+@Entity
+public class Item {
+
+    @Id
+    private Long id;
+
+    private String label;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Customer customer;
+
+    protected Item() {
+    }
+
+    public Item(Long id, String label, Customer customer) {
+        this.id       = id;
+        this.label    = label;
+        this.customer = customer;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+}